@@ -0,0 +1,124 @@
+package Codemon;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs the JMH suite with the GC profiler, writes JSON results and checks them
+// against a committed baseline.
+//
+//   java -jar target/benchmarks.jar [regex...] [--result file] [--baseline file]
+//                                   [--update-baseline] [--tolerance 0.10] [--strict]
+//
+// A benchmark regresses when its score moves the wrong way by more than the
+// tolerance (throughput down, average time up) or its allocation per op grows.
+// The committed baseline is from a single-core JDK 21 machine, so on anything else
+// regressions are only reported; with --strict, as in CI against a baseline recorded
+// on the same machine, any regression makes the process exit with status 1.
+public final class Benchmarks {
+    private static final String ALLOC = "gc.alloc.rate.norm";
+
+    public static void main(String[] args) throws IOException, RunnerException {
+        Path result = Path.of("target/jmh-result.json");
+        Path baseline = Path.of("bench/baseline.json");
+        boolean update = false, strict = false;
+        double tolerance = 0.10;
+        List<String> includes = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--result" -> result = Path.of(args[++i]);
+                case "--baseline" -> baseline = Path.of(args[++i]);
+                case "--update-baseline" -> update = true;
+                case "--tolerance" -> tolerance = Double.parseDouble(args[++i]);
+                case "--strict" -> strict = true;
+                default -> includes.add(args[i]);
+            }
+        }
+
+        OptionsBuilder options = new OptionsBuilder();
+        if (includes.isEmpty()) includes.add("Codemon\\..*Benchmark");
+        for (String include : includes) options.include(include);
+        options.addProfiler(GCProfiler.class)
+            .resultFormat(ResultFormatType.JSON)
+            .result(result.toString());
+        Files.createDirectories(result.toAbsolutePath().getParent());
+        new Runner(options.build()).run();
+
+        if (update) {
+            // Merge, so re-recording one benchmark keeps everyone else's baseline
+            Map<String, JSONObject> merged = Files.exists(baseline) ? load(baseline) : new TreeMap<>();
+            merged.putAll(load(result));
+            Files.createDirectories(baseline.toAbsolutePath().getParent());
+            Files.writeString(baseline, new JSONArray(merged.values()).toString(2));
+            System.out.println("Baseline updated: " + baseline);
+        } else if (Files.exists(baseline)) {
+            int regressions = compare(load(baseline), load(result), tolerance);
+            if (regressions > 0 && strict) System.exit(1);
+            if (regressions > 0) System.out.println("Reported only; --strict fails the run on regressions.");
+        } else {
+            System.out.println("No baseline at " + baseline + "; rerun with --update-baseline to record one.");
+        }
+    }
+
+    static int compare(Map<String, JSONObject> baseline, Map<String, JSONObject> current, double tolerance) {
+        int regressions = 0;
+        System.out.printf("%n%-62s %14s %14s %8s %12s %12s%n", "Benchmark", "Baseline", "Current", "Change", "B/op base", "B/op now");
+        for (Map.Entry<String, JSONObject> e : current.entrySet()) {
+            JSONObject before = baseline.get(e.getKey());
+            if (before == null) {
+                System.out.printf("%-62s %14s%n", e.getKey(), "(new)");
+                continue;
+            }
+            JSONObject now = e.getValue();
+            double oldScore = score(before), newScore = score(now);
+            double change = (newScore - oldScore) / oldScore;
+            boolean higherIsBetter = now.getString("mode").equals("thrpt");
+            boolean slower = higherIsBetter ? change < -tolerance : change > tolerance;
+
+            double oldAlloc = alloc(before), newAlloc = alloc(now);
+            // A few bytes of noise per op is normal for the profiler; growth beyond that is real
+            boolean heavier = newAlloc > oldAlloc * (1 + tolerance) + 8;
+
+            String flag = slower || heavier ? "  REGRESSION" : "";
+            if (!flag.isEmpty()) regressions++;
+            System.out.printf("%-62s %14.3f %14.3f %+7.1f%% %12.1f %12.1f%s%n",
+                e.getKey(), oldScore, newScore, change * 100, oldAlloc, newAlloc, flag);
+        }
+        System.out.println(regressions == 0 ? "\nNo regressions." : "\n" + regressions + " regression(s).");
+        return regressions;
+    }
+
+    private static Map<String, JSONObject> load(Path file) throws IOException {
+        JSONArray runs = new JSONArray(Files.readString(file));
+        Map<String, JSONObject> byKey = new TreeMap<>();
+        for (int i = 0; i < runs.length(); i++) {
+            JSONObject run = runs.getJSONObject(i);
+            String key = run.getString("benchmark") + " [" + run.getString("mode") + "]";
+            JSONObject params = run.optJSONObject("params");
+            if (params != null) key += " " + params;
+            byKey.put(key, run);
+        }
+        return byKey;
+    }
+
+    private static double score(JSONObject run) {
+        return run.getJSONObject("primaryMetric").getDouble("score");
+    }
+
+    private static double alloc(JSONObject run) {
+        JSONObject secondary = run.optJSONObject("secondaryMetrics");
+        if (secondary == null || !secondary.has(ALLOC)) return 0;
+        return secondary.getJSONObject(ALLOC).getDouble("score");
+    }
+}
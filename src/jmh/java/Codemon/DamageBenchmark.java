@@ -0,0 +1,21 @@
+package Codemon;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DamageBenchmark {
+    // Mid-game numbers; kept in fields so the JIT can't fold the call away
+    int level = 10, atk = 84, def = 78, power = 90;
+    double typeMultiplier = 2.0, stab = 1.5, crit = 1.0, variance = 0.92;
+
+    @Benchmark
+    public int calculatePokemonDamage() {
+        return BattleEngine.calculatePokemonDamage(level, atk, def, power, typeMultiplier, stab, crit, variance);
+    }
+}
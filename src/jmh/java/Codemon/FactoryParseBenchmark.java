@@ -0,0 +1,50 @@
+package Codemon;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// JSON-to-Species parsing on PokéAPI-shaped fixtures (src/jmh/resources/fixtures):
+// a ~270 KB /pokemon/1 document and the /move documents Factory looks at for it.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FactoryParseBenchmark {
+    byte[] pokemon;
+    Map<String, byte[]> moves = new HashMap<>();
+
+    @Setup
+    public void load() throws IOException {
+        pokemon = fixture("pokemon/1");
+        for (String name : new String[] { "razor-wind", "swords-dance", "cut", "bind", "vine-whip", "headbutt", "tackle", "body-slam" }) {
+            moves.put(name, fixture("move/" + name));
+        }
+    }
+
+    @Benchmark
+    public Species parseSpecies() throws IOException {
+        return Factory.parseSpecies(new ByteArrayInputStream(pokemon), name -> {
+            byte[] json = moves.get(name);
+            try {
+                return CompletableFuture.completedFuture(json == null ? null : Factory.parseMove(name, new ByteArrayInputStream(json)));
+            } catch (IOException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        });
+    }
+
+    static byte[] fixture(String path) throws IOException {
+        try (InputStream in = FactoryParseBenchmark.class.getResourceAsStream("/fixtures/" + path + ".json")) {
+            if (in == null) throw new IOException("Missing fixture " + path);
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package Codemon;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HpBarBenchmark {
+    int hp = 37, maxHp = 59;
+
+    @Benchmark
+    public String hpBar() {
+        return BattleGame.hpBar(hp, maxHp);
+    }
+}
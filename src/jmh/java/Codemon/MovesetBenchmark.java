@@ -0,0 +1,52 @@
+package Codemon;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// Picking a moveset from a learnset with MoveCatalog, as every species load does.
+// The catalog is generated to roughly Gen 1 proportions: 165 moves, a quarter of them
+// status moves, and 151 learnsets of 20 to 80 moves.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MovesetBenchmark {
+    static final int SPECIES = 151;
+
+    MoveCatalog catalog;
+    int next;
+
+    @Setup
+    public void build() throws IOException {
+        SplittableRandom rng = new SplittableRandom(42);
+        List<Move> moves = new ArrayList<>();
+        for (int i = 0; i < 165; i++) {
+            boolean status = rng.nextInt(4) == 0;
+            moves.add(new Move("Move-" + i, Type.byOrdinal(rng.nextInt(Type.COUNT)).apiName(),
+                status ? 0 : 20 + rng.nextInt(13) * 10, 70 + rng.nextInt(4) * 10, status ? "status" : "physical"));
+        }
+        int[][] learnsets = new int[SPECIES + 1][];
+        for (int id = 1; id <= SPECIES; id++) {
+            learnsets[id] = rng.ints(20 + rng.nextInt(61), 0, moves.size()).distinct().toArray();
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        MoveCatalog.write(new DataOutputStream(bytes), moves, learnsets);
+        catalog = MoveCatalog.read(ByteBuffer.wrap(bytes.toByteArray()), 0, SPECIES);
+    }
+
+    @Benchmark
+    public List<Move> moveset() {
+        int id = next % SPECIES + 1;
+        next++;
+        return catalog.moveset(id, id % Type.COUNT, Type.NONE);
+    }
+}
@@ -0,0 +1,53 @@
+package Codemon;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// What recording costs per battle turn: a turn marker and two attacks, plus a
+// checkpoint and a write every eighth turn. Writes go to /dev/null so the number
+// is the log's own work, not the disk's. A new log starts every MAX_TURNS turns,
+// as a battle would.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReplayLogBenchmark {
+    Move tackle = new Move("tackle", "normal", 40, 100, "physical");
+    Move ember = new Move("ember", "fire", 40, 100, "special");
+    Species a = new Species("Rattata", "normal", 5, 30, 56, 35, List.of(tackle));
+    Species b = new Species("Charmander", "fire", 5, 39, 52, 43, List.of(ember));
+    BattleState state = BattleState.of(a, b);
+    FileChannel channel;
+    ReplayLog log;
+    int turn;
+
+    @Setup
+    public void open() throws IOException {
+        channel = FileChannel.open(Path.of("/dev/null"), StandardOpenOption.WRITE);
+        log = new ReplayLog(channel, 42, 19, 4, 1, state, a, b);
+    }
+
+    @TearDown
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    @Benchmark
+    public void turn() {
+        if (++turn > BattleEngine.MAX_TURNS) {
+            turn = 1;
+            log = new ReplayLog(channel, 42, 19, 4, 1, state, a, b);
+        }
+        log.onTurnStart(turn);
+        log.onAttack(BattleState.SIDE_A, a, b, tackle, true, false, 1.0, 7);
+        log.onAttack(BattleState.SIDE_B, b, a, ember, true, turn % 16 == 0, 1.0, 8);
+        log.onTurnEnd(turn);
+    }
+}
@@ -0,0 +1,45 @@
+package Codemon;
+
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// The battle turn loop on a BattleState. gc.alloc.rate.norm is the number to watch:
+// a turn must allocate nothing, and a whole battle only its BattleResult, however
+// many turns it runs. The two sides are tanky, so a battle lasts a dozen turns or so.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TurnLoopBenchmark {
+    Species a = new Species("Snorlax", "normal", 30, 250, 60, 110, List.of(
+        new Move("body-slam", "normal", 85, 100, "physical"),
+        new Move("earthquake", "ground", 100, 100, "physical"),
+        new Move("hyper-beam", "normal", 150, 90, "special"),
+        new Move("headbutt", "normal", 70, 100, "physical")));
+    Species b = new Species("Venusaur", "grass", "poison", 30, 240, 65, 120, List.of(
+        new Move("razor-leaf", "grass", 55, 95, "physical"),
+        new Move("sludge-bomb", "poison", 90, 100, "special"),
+        new Move("solar-beam", "grass", 120, 100, "special")));
+    BattleState start = BattleState.of(a, b);
+    BattleState state = start.copy();
+    MovePolicy random = MovePolicy.random();
+    SplittableRandom rng = new SplittableRandom(42);
+
+    @Benchmark
+    public int turn() {
+        int winner = state.playTurn(rng.nextInt(state.moveCount(BattleState.SIDE_A)),
+            rng.nextInt(state.moveCount(BattleState.SIDE_B)), rng);
+        if (winner >= 0) state.copyFrom(start);
+        return winner;
+    }
+
+    @Benchmark
+    public int battle() {
+        state.copyFrom(start);
+        return BattleEngine.fight(state, a, b, random, random, rng, BattleListener.NONE).turns();
+    }
+}
@@ -0,0 +1,27 @@
+package Codemon;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// The chart is preloaded, so there is no network "cold" path left to measure;
+// the by-name lookup is the slow path callers still hit with PokéAPI strings.
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TypeEffectivenessBenchmark {
+    String attack = "fire", defender = "grass", secondary = "poison";
+    int attackOrdinal = Type.FIRE.ordinal(), defenderOrdinal = Type.GRASS.ordinal(), secondaryOrdinal = Type.POISON.ordinal();
+
+    @Benchmark
+    public double byOrdinal() {
+        return TypeEffectiveness.getMultiplier(attackOrdinal, defenderOrdinal, secondaryOrdinal);
+    }
+
+    @Benchmark
+    public double byName() {
+        return TypeEffectiveness.getMultiplier(attack, defender, secondary);
+    }
+}
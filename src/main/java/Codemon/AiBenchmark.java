@@ -0,0 +1,70 @@
+package Codemon;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Measures the search AI: rollouts/sec at the game's per-move time budget, and its
+// win rate against the random policy over seeded battles between roster members.
+// Every matchup is played twice with the AI on each side, so turn order on level
+// ties doesn't favour either policy.
+//
+//   AiBenchmark [battles] [rolloutsPerMove] [seed] [budgetMs]
+public final class AiBenchmark {
+    public static void main(String[] args) {
+        int battles = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int rollouts = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        long budgetMs = args.length > 3 ? Long.parseLong(args[3]) : 50;
+
+        List<Species> roster = BattleSimulator.loadRoster();
+        System.out.println("Roster: " + roster.size() + " species, "
+            + Runtime.getRuntime().availableProcessors() + " cores");
+
+        // Throughput at the game's budget, over a spread of matchups
+        SearchPolicy timed = SearchPolicy.timed(budgetMs);
+        SplittableRandom rng = new SplittableRandom(seed);
+        for (int i = 0; i < 20; i++) timed.search(randomMatchup(roster, rng), BattleState.SIDE_A, rng); // warm-up
+        long searches = 0, total = 0, start = System.nanoTime();
+        while (System.nanoTime() - start < 5_000_000_000L) {
+            timed.search(randomMatchup(roster, rng), BattleState.SIDE_A, rng);
+            total += timed.lastRollouts();
+            searches++;
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d searches at %d ms: %,.0f rollouts/sec, %,d rollouts per move on average%n",
+            searches, budgetMs, total / seconds, total / searches);
+
+        // Win rate with a fixed rollout count, so the result is reproducible
+        int aiWins = 0, seatWins = 0, games = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < battles; i++) {
+            long battleSeed = BattleSimulator.seedFor(seed, i);
+            SplittableRandom pick = new SplittableRandom(battleSeed);
+            Species a = roster.get(pick.nextInt(roster.size()));
+            Species b = roster.get(pick.nextInt(roster.size()));
+
+            BattleResult asA = BattleEngine.fight(a, b, SearchPolicy.fixed(rollouts),
+                MovePolicy.random(), new SplittableRandom(battleSeed + 1), BattleListener.NONE);
+            BattleResult asB = BattleEngine.fight(b, a, MovePolicy.random(),
+                SearchPolicy.fixed(rollouts), new SplittableRandom(battleSeed + 2), BattleListener.NONE);
+            if (asA.winner() == BattleResult.SIDE_A) aiWins++;
+            if (asB.winner() == BattleResult.SIDE_B) aiWins++;
+
+            // The same games with random playing the AI's seat, for reference
+            BattleResult r1 = BattleEngine.fight(a, b, MovePolicy.random(), MovePolicy.random(),
+                new SplittableRandom(battleSeed + 1), BattleListener.NONE);
+            BattleResult r2 = BattleEngine.fight(b, a, MovePolicy.random(), MovePolicy.random(),
+                new SplittableRandom(battleSeed + 2), BattleListener.NONE);
+            if (r1.winner() == BattleResult.SIDE_A) seatWins++;
+            if (r2.winner() == BattleResult.SIDE_B) seatWins++;
+            games += 2;
+        }
+        seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games, %d rollouts per move: AI wins %.1f%% against random (random in the same seat: %.1f%%) in %.1f s%n",
+            games, rollouts, 100.0 * aiWins / games, 100.0 * seatWins / games, seconds);
+    }
+
+    private static BattleState randomMatchup(List<Species> roster, SplittableRandom rng) {
+        return BattleState.of(roster.get(rng.nextInt(roster.size())), roster.get(rng.nextInt(roster.size())));
+    }
+}
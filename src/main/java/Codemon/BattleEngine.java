@@ -0,0 +1,74 @@
+package Codemon;
+
+import java.util.random.RandomGenerator;
+
+// The battle rules with no terminal attached: turn order, accuracy, crits,
+// damage and fainting. Everything random comes from the generator passed in,
+// so a seeded generator replays the same battle exactly.
+//
+// The turn loop runs on a BattleState, not on the Species: HP, stats, type and
+// move ordinals live in one int[], so a turn allocates nothing. The Species are
+// only handed to the listener, for names and moves, and are left untouched.
+public final class BattleEngine {
+    // Safety valve for simulations; a real battle ends long before this
+    static final int MAX_TURNS = 1000;
+
+    private BattleEngine() {}
+
+    public static BattleResult fight(Species a, Species b, MovePolicy policyA, MovePolicy policyB,
+                                     RandomGenerator rng, BattleListener listener) {
+        return fight(BattleState.of(a, b), a, b, policyA, policyB, rng, listener);
+    }
+
+    // Plays the battle out on state, which the caller may have adjusted first (Hard mode's boost)
+    public static BattleResult fight(BattleState state, Species a, Species b, MovePolicy policyA, MovePolicy policyB,
+                                     RandomGenerator rng, BattleListener listener) {
+        int damageByA = 0;
+        int damageByB = 0;
+        for (int turn = 1; turn <= MAX_TURNS; turn++) {
+            int moveA = policyA.choose(state, BattleState.SIDE_A, rng);
+            if (moveA == MovePolicy.RUN) return new BattleResult(BattleResult.FLED, turn - 1, damageByA, damageByB);
+            int moveB = policyB.choose(state, BattleState.SIDE_B, rng);
+            if (moveB == MovePolicy.RUN) return new BattleResult(BattleResult.FLED, turn - 1, damageByA, damageByB);
+
+            listener.onTurnStart(turn);
+            try {
+                // Turn order
+                if (state.firstToAct() == BattleState.SIDE_A) {
+                    damageByA += attack(state, BattleState.SIDE_A, moveA, a, b, rng, listener);
+                    if (state.hp(BattleState.SIDE_B) <= 0) return new BattleResult(BattleResult.SIDE_A, turn, damageByA, damageByB);
+                    damageByB += attack(state, BattleState.SIDE_B, moveB, b, a, rng, listener);
+                    if (state.hp(BattleState.SIDE_A) <= 0) return new BattleResult(BattleResult.SIDE_B, turn, damageByA, damageByB);
+                } else {
+                    damageByB += attack(state, BattleState.SIDE_B, moveB, b, a, rng, listener);
+                    if (state.hp(BattleState.SIDE_A) <= 0) return new BattleResult(BattleResult.SIDE_B, turn, damageByA, damageByB);
+                    damageByA += attack(state, BattleState.SIDE_A, moveA, a, b, rng, listener);
+                    if (state.hp(BattleState.SIDE_B) <= 0) return new BattleResult(BattleResult.SIDE_A, turn, damageByA, damageByB);
+                }
+            } finally {
+                listener.onTurnEnd(turn);
+            }
+        }
+        return new BattleResult(BattleResult.DRAW, MAX_TURNS, damageByA, damageByB);
+    }
+
+    // Resolves one move on the state and reports it; returns the damage dealt
+    private static int attack(BattleState state, int side, int move, Species attacker, Species defender,
+                              RandomGenerator rng, BattleListener listener) {
+        int damage = state.attack(side, move, rng);
+        listener.onAttack(side, attacker, defender, attacker.getMoves().get(move), damage > 0, state.lastCrit(),
+            state.lastTypeMultiplier(), damage);
+        return damage;
+    }
+
+    public static int calculatePokemonDamage(int level, int atk, int def, int power, double typeMultiplier,
+                                             double stab, double crit, double variance) {
+        double modifier = typeMultiplier * stab * crit * variance;
+        return (int) Math.max(1, Math.floor(baseDamage(level, atk, def, power) * modifier));
+    }
+
+    // The formula before type, STAB, crit and variance; DamageCalculator works from it too
+    static double baseDamage(int level, int atk, int def, int power) {
+        return (((2.0 * level) / 5.0 + 2.0) * power * ((double) atk / Math.max(1, def)) / 50.0) + 2.0;
+    }
+}
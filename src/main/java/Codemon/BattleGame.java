@@ -1,189 +1,268 @@
 package Codemon;
 
-import java.util.Random;
+import java.io.IOException;
 import java.util.List;
 import java.util.Scanner;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import jdk.jfr.EventType;
 
 public class BattleGame {
+    // How long a battle may wait on species loads once the player has answered
+    private static final long START_BUDGET_MS = Long.getLong("codemon.battle.budgetMs", 3000);
+    // -Dcodemon.battle.odds=true shows each move's damage range and KO chances in the move menu
+    private static final boolean ODDS = Boolean.getBoolean("codemon.battle.odds");
+    private static final int ODDS_USES = 3;
+    private static final EventType TURN_EVENTS = EventType.getEventType(TurnEvent.class);
+    // Preference key for the difficulty last played
+    static final String DIFFICULTY = "difficulty";
 
     // ANSI Colors
     public static class Colors {
-        public static final String RESET = "\u001B[0m";
-        public static final String RED = "\u001B[31m";
-        public static final String GREEN = "\u001B[32m";
-        public static final String YELLOW = "\u001B[33m";
-        public static final String BLUE = "\u001B[34m";
-        public static final String PURPLE = "\u001B[35m";
-        public static final String CYAN = "\u001B[36m";
+        public static final String RESET = Screen.RESET;
+        public static final String RED = Screen.RED;
+        public static final String GREEN = Screen.GREEN;
+        public static final String YELLOW = Screen.YELLOW;
+        public static final String BLUE = Screen.BLUE;
+        public static final String PURPLE = Screen.PURPLE;
+        public static final String CYAN = Screen.CYAN;
     }
 
-    public static void startBattle(Scanner scanner) {
-        System.out.println(Colors.CYAN + "\nChoose difficulty:" + Colors.RESET);
-        System.out.println(Colors.GREEN + "1. Easy" + Colors.RESET);
-        System.out.println(Colors.RED + "2. Hard" + Colors.RESET);
-        System.out.print(Colors.YELLOW + "1 or 2?: " + Colors.RESET);
+    public static void startBattle(Session session) {
+        Scanner scanner = session.scanner();
+        Screen screen = session.screen();
+        Prefetcher prefetcher = session.prefetcher();
+        // Usually already loaded while the main menu was up
+        CompletableFuture<Species> pendingOpponent = prefetcher.takeOpponent();
+        prefetcher.speculatePlayers();
+
+        screen.line(Colors.CYAN, "\nChoose difficulty:")
+            .line(Colors.GREEN, "1. Easy")
+            .line(Colors.RED, "2. Hard");
+        screen.prompt(Colors.YELLOW, "1 or 2?: ");
         int difficulty = scanner.nextInt();
 
-        Species opponent = Factory.createFromAPI(new Random().nextInt(151) + 1);
-        Species player;
+        Arrival opponentArrival;
+        Arrival playerArrival;
+        int playerId;
 
+        int opponentId = prefetcher.takenOpponentId();
         if (difficulty == 1) {
-            System.out.println(Colors.RED + "Opponent: " + opponent.getName() + " (Type: " + opponent.getType() + ")" + Colors.RESET);
-            System.out.print("Choose your Pokémon ID (1-151): ");
-            player = Factory.createFromAPI(scanner.nextInt());
+            opponentArrival = arrive(screen, pendingOpponent, opponentId, deadline());
+            showOpponent(screen, opponentArrival.species());
+            screen.text("Choose your Pokémon ID (1-151): ").flush();
+            playerId = scanner.nextInt();
+            playerArrival = arrive(screen, prefetcher.player(playerId), playerId, deadline());
         } else {
-            System.out.print("Choose your Pokémon ID (1-151): ");
-            player = Factory.createFromAPI(scanner.nextInt());
-            System.out.println(Colors.RED + "Opponent: " + opponent.getName() + " (Type: " + opponent.getType() + ")" + Colors.RESET);
-            opponent = boostOpponent(opponent);
+            screen.text("Choose your Pokémon ID (1-151): ").flush();
+            playerId = scanner.nextInt();
+            long deadline = deadline();
+            CompletableFuture<Species> pendingPlayer = prefetcher.player(playerId);
+            opponentArrival = arrive(screen, pendingOpponent, opponentId, deadline);
+            playerArrival = arrive(screen, pendingPlayer, playerId, deadline);
+            showOpponent(screen, opponentArrival.species());
         }
+        Species opponent = opponentArrival.species();
+        Species player = playerArrival.species();
 
-        System.out.println(Colors.CYAN + "\n~~ Battle Start! ~~" + Colors.RESET);
-        System.out.println(Colors.GREEN + "Go! " + player.getName() + "!" + Colors.RESET);
-        battleLoop(scanner, player, opponent);
+        screen.line(Colors.CYAN, "\n~~ Battle Start! ~~")
+            .text(Colors.GREEN).text("Go! ").text(player.getName()).text("!").line(Colors.RESET);
+        BattleState state = BattleState.of(player, opponent);
+        MovePolicy opponentPolicy = MovePolicy.random();
+        if (difficulty != 1) {
+            // Hard mode's opponent is stronger and searches for its best move instead of picking at random
+            state.boost(BattleState.SIDE_B);
+            opponentPolicy = SearchPolicy.forGame();
+        }
+        // Seeded, so the replay log can name the exact battle
+        long seed = session.random().nextLong();
+        ReplayLog log = session.replays() ? ReplayLog.create(seed, playerId, opponentId, difficulty, state, player, opponent) : null;
+        BattleResult result = battleLoop(session, state, player, opponent, opponentPolicy, seed, log);
+        // Credited to what actually fought; MissingNo isn't a species the player has, so it goes unrecorded
+        if (playerArrival.id() != 0) {
+            save(session, new SaveStore.Battle(System.currentTimeMillis(), playerArrival.id(), opponentArrival.id(),
+                difficulty, result.winner(), result.turns()));
+        }
+        session.pause();
     }
 
-    private static void battleLoop(Scanner scanner, Species player, Species opponent) {
-        while (player.getHp() > 0 && opponent.getHp() > 0) {
-            System.out.println("\n=== Battle Menu ===");
-            System.out.println(
-                Colors.GREEN + player.getName() + " HP: " + hpBar(player.getHp(), player.getMaxHp()) + Colors.RESET +
-                "   " +
-                Colors.RED + opponent.getName() + " HP: " + hpBar(opponent.getHp(), opponent.getMaxHp()) + Colors.RESET
-            );
-            System.out.println("1. Fight");
-            System.out.println("2. Run");
-            System.out.print("Choose: ");
-            int choice = scanner.nextInt();
-
-            if (choice == 2) {
-                System.out.println(Colors.YELLOW + "You ran away safely..." + Colors.RESET);
-                pause();
-                return;
-            } else if (choice != 1) {
-                System.out.println(Colors.PURPLE + "Invalid choice! Try again." + Colors.RESET);
-                continue;
-            }
-
-            // Turn order
-            boolean playerFirst = player.getLevel() >= opponent.getLevel();
-
-            if (playerFirst) {
-                boolean opponentFainted = playerTurn(scanner, player, opponent);
-                if (opponentFainted) break;
-                boolean playerFainted = opponentTurn(opponent, player);
-                if (playerFainted) break;
-            } else {
-                boolean playerFainted = opponentTurn(opponent, player);
-                if (playerFainted) break;
-                boolean opponentFainted = playerTurn(scanner, player, opponent);
-                if (opponentFainted) break;
-            }
+    // One frame appended to the save's log; a failure costs this battle's record, not the game
+    private static void save(Session session, SaveStore.Battle battle) {
+        SaveStore save = session.save();
+        if (save == null) return;
+        try {
+            save.recordBattle(battle);
+            save.setPreference(DIFFICULTY, battle.difficulty() == 1 ? "Easy" : "Hard");
+        } catch (IOException e) {
+            session.screen().line(Colors.RED, "Couldn't save this battle: " + e.getMessage());
         }
+    }
 
-        if (player.getHp() > 0) {
-            System.out.println(Colors.GREEN + "\n*** Victory! ***" + Colors.RESET);
-        } else {
-            System.out.println(Colors.RED + "\n*** You blacked out... ***" + Colors.RESET);
-        }
-        pause();
+    // When the species for a battle must be on screen, counted from the player's last answer
+    private static long deadline() {
+        return System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(START_BUDGET_MS);
     }
 
-    private static boolean playerTurn(Scanner scanner, Species player, Species opponent) {
-        List<Move> moves = player.getMoves();
-        System.out.println("\nYour Moves:");
-        for (int i = 0; i < moves.size(); i++) {
-            Move m = moves.get(i);
-            System.out.println((i + 1) + ". " + m.getName() + " (" + m.getType() + ", " + m.getPower() + ")");
+    // The species that fights for an ID, and the ID it was loaded under: the one asked for, or a
+    // stand-in's own (0 for MissingNo)
+    private record Arrival(int id, Species species) {}
+
+    // The loaded species, or a stand-in if it failed or isn't here by the deadline. A late
+    // load keeps going in the background and is cached for the next battle.
+    private static Arrival arrive(Screen screen, CompletableFuture<Species> pending, int id, long deadline) {
+        Species species = null;
+        try {
+            species = pending.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | ExecutionException | CancellationException e) {
+            // Falls through to a stand-in
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        if (species != null && !Factory.isMissing(species)) return new Arrival(id, species);
+
+        int standInId = Factory.standInId(id);
+        Species standIn = Factory.loaded(standInId);
+        Metrics.STAND_INS.increment();
+        screen.line(Colors.PURPLE, "#" + id + " couldn't be reached in time; " + standIn.getName() + " stands in.");
+        return new Arrival(standInId, standIn);
+    }
 
-        System.out.print("Choose a move: ");
-        int choice = scanner.nextInt() - 1;
-        Move move = moves.get(choice);
+    private static void showOpponent(Screen screen, Species opponent) {
+        screen.text(Colors.RED).text("Opponent: ").text(opponent.getName())
+            .text(" (Type: ").text(opponent.getTypeLabel()).text(")").line(Colors.RESET);
+    }
 
-        if (new Random().nextInt(100) < move.getAccuracy()) {
-            boolean crit = new Random().nextInt(16) == 0;
-            double critMultiplier = crit ? 1.5 : 1.0;
-            double stab = move.getType().equalsIgnoreCase(player.getType()) ? 1.5 : 1.0;
-            double typeMultiplier = TypeEffectiveness.getMultiplier(move.getType(), opponent.getType());
+    private static BattleResult battleLoop(Session session, BattleState state, Species player, Species opponent,
+                                   MovePolicy opponentPolicy, long seed, ReplayLog log) {
+        Screen screen = session.screen();
+        BattleListener printer = new BattleListener() {
+            private TurnEvent event;
+            private long start;
 
-            int damage = calculatePokemonDamage(player.getLevel(), player.getAttack(), opponent.getDefense(), move.getPower(), typeMultiplier, stab, critMultiplier);
-            opponent.setHp(Math.max(0, opponent.getHp() - damage));
+            @Override
+            public void onAttack(int side, Species attacker, Species defender, Move move, boolean hit, boolean crit,
+                                 double typeMultiplier, int damage) {
+                printAttack(screen, side == BattleState.SIDE_A ? Colors.CYAN : Colors.RED, attacker.getName(), move.getName(),
+                    hit, crit, typeMultiplier, damage);
+            }
 
-            System.out.print(Colors.CYAN + player.getName() + " used " + move.getName() + "! " + Colors.RESET);
-            if (crit) System.out.print(Colors.YELLOW + "A critical hit! " + Colors.RESET);
-            System.out.println(effectivenessText(typeMultiplier) + " Dealt " + damage + " damage.");
-        } else {
-            System.out.println(Colors.PURPLE + player.getName() + " missed!" + Colors.RESET);
+            // Time from both sides having chosen to the turn's output being composed
+            @Override
+            public void onTurnStart(int turn) {
+                // No event, so no allocation, unless a recording has codemon.Turn on
+                event = TURN_EVENTS.isEnabled() ? new TurnEvent() : null;
+                if (event != null) event.begin();
+                start = Metrics.start();
+            }
+
+            @Override
+            public void onTurnEnd(int turn) {
+                Metrics.stop(Metrics.TURN, start);
+                if (event == null) return;
+                event.turn = turn;
+                event.commit();
+            }
+        };
+        BattleResult result = null;
+        try {
+            result = BattleEngine.fight(state, player, opponent, playerPolicy(session, player, opponent),
+                opponentPolicy, new SplittableRandom(seed), log == null ? printer : printer.andThen(log));
+        } finally {
+            // A player hanging up mid-battle ends the fight with an exception; the file is closed either way
+            if (log != null && result != null) log.finish(result);
+            else if (log != null) log.close();
         }
 
-        return opponent.getHp() <= 0;
+        if (result.winner() == BattleResult.FLED) {
+            screen.line(Colors.YELLOW, "You ran away safely...");
+        } else if (state.hp(BattleState.SIDE_A) > 0) {
+            screen.line(Colors.GREEN, "\n*** Victory! ***");
+        } else {
+            screen.line(Colors.RED, "\n*** You blacked out... ***");
+        }
+        return result;
     }
 
-    private static boolean opponentTurn(Species opponent, Species player) {
-        Move move = opponent.getMoves().get(new Random().nextInt(opponent.getMoves().size()));
-        if (new Random().nextInt(100) < move.getAccuracy()) {
-            boolean crit = new Random().nextInt(16) == 0;
-            double critMultiplier = crit ? 1.5 : 1.0;
-            double stab = move.getType().equalsIgnoreCase(opponent.getType()) ? 1.5 : 1.0;
-            double typeMultiplier = TypeEffectiveness.getMultiplier(move.getType(), player.getType());
+    // The human side of the battle: Fight/Run menu, then the move list
+    private static MovePolicy playerPolicy(Session session, Species player, Species opponent) {
+        Scanner scanner = session.scanner();
+        Screen screen = session.screen();
+        return (state, side, rng) -> {
+            int foe = 1 - side;
+            while (true) {
+                screen.line("\n=== Battle Menu ===")
+                    .text(Colors.GREEN).text(player.getName()).text(" HP: ").text(hpBar(state.hp(side), state.maxHp(side))).text(Colors.RESET)
+                    .text("   ")
+                    .text(Colors.RED).text(opponent.getName()).text(" HP: ").text(hpBar(state.hp(foe), state.maxHp(foe))).line(Colors.RESET)
+                    .line("1. Fight")
+                    .line("2. Run")
+                    .text("Choose: ").flush();
+                int choice = scanner.nextInt();
 
-            int damage = calculatePokemonDamage(opponent.getLevel(), opponent.getAttack(), player.getDefense(), move.getPower(), typeMultiplier, stab, critMultiplier);
-            player.setHp(Math.max(0, player.getHp() - damage));
+                if (choice == 2) {
+                    return MovePolicy.RUN;
+                } else if (choice != 1) {
+                    screen.line(Colors.PURPLE, "Invalid choice! Try again.");
+                    continue;
+                }
 
-            System.out.print(Colors.RED + opponent.getName() + " used " + move.getName() + "! " + Colors.RESET);
-            if (crit) System.out.print(Colors.YELLOW + "A critical hit! " + Colors.RESET);
-            System.out.println(effectivenessText(typeMultiplier) + " Dealt " + damage + " damage.");
-        } else {
-            System.out.println(Colors.PURPLE + opponent.getName() + " missed!" + Colors.RESET);
-        }
+                List<Move> moves = player.getMoves();
+                screen.line("\nYour Moves:");
+                for (int i = 0; i < moves.size(); i++) {
+                    Move m = moves.get(i);
+                    screen.text(i + 1).text(". ").text(m.getName()).text(" (").text(m.getType()).text(", ").text(m.getPower()).line(")");
+                    if (ODDS) printOdds(screen, DamageCalculator.of(state, side, i), state.hp(foe));
+                }
 
-        return player.getHp() <= 0;
+                screen.text("Choose a move: ").flush();
+                int move = scanner.nextInt() - 1;
+                if (move >= 0 && move < moves.size()) return move;
+                screen.line(Colors.PURPLE, "Invalid choice! Try again.");
+            }
+        };
     }
 
-    private static int calculatePokemonDamage(int level, int atk, int def, int power, double typeMultiplier, double stab, double crit) {
-        double base = (((2.0 * level) / 5.0 + 2.0) * power * ((double) atk / Math.max(1, def)) / 50.0) + 2.0;
-        double variance = 0.85 + (new Random().nextDouble() * 0.15);
-        double modifier = typeMultiplier * stab * crit * variance;
-        return (int) Math.max(1, Math.floor(base * modifier));
+    // "   Odds: 12-17 dmg, 95% to hit; KO in 1: 0%, 2: 31%, 3: 88%"
+    private static void printOdds(Screen screen, DamageCalculator.Distribution odds, int foeHp) {
+        double[] ko = odds.koChances(foeHp, ODDS_USES);
+        screen.text(Colors.BLUE).text("   Odds: ").text(odds.min()).text("-").text(odds.max()).text(" dmg, ")
+            .text(percent(odds.hitChance())).text(" to hit; KO in");
+        for (int n = 0; n < ko.length; n++) screen.text(n == 0 ? " " : ", ").text(n + 1).text(": ").text(percent(ko[n]));
+        screen.line(Colors.RESET);
     }
 
-    private static String effectivenessText(double multiplier) {
-        if (multiplier == 2.0) return Colors.GREEN + "It's super effective!" + Colors.RESET;
-        if (multiplier == 0.5) return Colors.YELLOW + "Not very effective..." + Colors.RESET;
-        if (multiplier == 0.0) return Colors.PURPLE + "It had no effect!" + Colors.RESET;
-        return "Effective.";
+    // Whole percent, except that an outcome that can or can't happen never shows as 0% or 100%
+    private static String percent(double p) {
+        if (p <= 0) return "0%";
+        if (p >= 1 - 1e-12) return "100%";
+        if (p < 0.005) return "<1%";
+        if (p > 0.995) return ">99%";
+        return Math.round(p * 100) + "%";
     }
 
-    private static String hpBar(int hp, int maxHp) {
-        int totalBars = 20;
-        int filled = (int) ((double) hp / maxHp * totalBars);
-        StringBuilder bar = new StringBuilder("[");
-        for (int i = 0; i < totalBars; i++) {
-            bar.append(i < filled ? "█" : "-");
+    static void printAttack(Screen screen, String color, String attacker, String move, boolean hit,
+                                    boolean crit, double typeMultiplier, int damage) {
+        if (!hit) {
+            screen.text(Colors.PURPLE).text(attacker).text(" missed!").line(Colors.RESET);
+            return;
         }
-        bar.append("]");
-        return bar.toString();
+        screen.text(color).text(attacker).text(" used ").text(move).text("! ").text(Colors.RESET);
+        if (crit) screen.text(Colors.YELLOW, "A critical hit! ");
+        screen.text(effectivenessText(typeMultiplier)).text(" Dealt ").text(damage).line(" damage.");
     }
 
-    private static void pause() {
-        System.out.println(Colors.PURPLE + "\nPress Enter to continue..." + Colors.RESET);
-        try {
-            System.in.read();
-        } catch (Exception e) {
-            // Ignore
-        }
+    private static String effectivenessText(double multiplier) {
+        if (multiplier == 0.0) return Colors.PURPLE + "It had no effect!" + Colors.RESET;
+        if (multiplier > 1.0) return Colors.GREEN + "It's super effective!" + Colors.RESET;
+        if (multiplier < 1.0) return Colors.YELLOW + "Not very effective..." + Colors.RESET;
+        return "Effective.";
     }
 
-    private static Species boostOpponent(Species original) {
-        return new Species(
-            original.getName(),
-            original.getType(),
-            original.getLevel() + 5,
-            original.getHp() * 2,
-            original.getAttack() * 2,
-            original.getDefense() * 2,
-            original.getMoves()
-        );
+    static String hpBar(int hp, int maxHp) {
+        return Screen.hpBar(hp, maxHp);
     }
-}
\ No newline at end of file
+}
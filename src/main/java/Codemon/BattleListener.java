@@ -0,0 +1,39 @@
+package Codemon;
+
+// Called by BattleEngine as each move resolves, so a client can show what happened.
+public interface BattleListener {
+    BattleListener NONE = (side, attacker, defender, move, hit, crit, typeMultiplier, damage) -> {};
+
+    // side is the attacker's (BattleState.SIDE_A or SIDE_B); in a mirror match both sides are the same Species
+    void onAttack(int side, Species attacker, Species defender, Move move, boolean hit, boolean crit,
+                  double typeMultiplier, int damage);
+
+    // Brackets the moves of one turn, after both sides have chosen
+    default void onTurnStart(int turn) {}
+    default void onTurnEnd(int turn) {}
+
+    // Both listeners, this one first
+    default BattleListener andThen(BattleListener next) {
+        BattleListener first = this;
+        return new BattleListener() {
+            @Override
+            public void onAttack(int side, Species attacker, Species defender, Move move, boolean hit, boolean crit,
+                                 double typeMultiplier, int damage) {
+                first.onAttack(side, attacker, defender, move, hit, crit, typeMultiplier, damage);
+                next.onAttack(side, attacker, defender, move, hit, crit, typeMultiplier, damage);
+            }
+
+            @Override
+            public void onTurnStart(int turn) {
+                first.onTurnStart(turn);
+                next.onTurnStart(turn);
+            }
+
+            @Override
+            public void onTurnEnd(int turn) {
+                first.onTurnEnd(turn);
+                next.onTurnEnd(turn);
+            }
+        };
+    }
+}
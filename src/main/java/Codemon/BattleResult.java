@@ -0,0 +1,10 @@
+package Codemon;
+
+// Outcome of one BattleEngine.fight: the winning side (SIDE_A, SIDE_B, FLED or DRAW),
+// rounds played, and total damage dealt by each side.
+public record BattleResult(int winner, int turns, int damageByA, int damageByB) {
+    public static final int SIDE_A = 0;
+    public static final int SIDE_B = 1;
+    public static final int FLED = -1;
+    public static final int DRAW = -2;
+}
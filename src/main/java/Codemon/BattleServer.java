@@ -0,0 +1,143 @@
+package Codemon;
+
+import java.io.Closeable;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Serves the game over TCP with a plain line protocol, so telnet or nc is a client.
+// Every connection is a Session running the usual MainMenu flow on its own virtual
+// thread. Species, moves and the type chart are loaded once and shared by everyone.
+//
+//   BattleServer [--port 2323] [--bind 0.0.0.0] [--max-sessions 10000]
+//
+// Past --max-sessions, new connections are told the server is full and closed.
+public final class BattleServer implements Closeable {
+    private final ServerSocket socket;
+    private final Semaphore slots;
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong finished = new AtomicLong();
+
+    public BattleServer(InetAddress bind, int port, int maxSessions) throws IOException {
+        this.socket = new ServerSocket();
+        this.socket.setReuseAddress(true);
+        this.socket.bind(new InetSocketAddress(bind, port), 1024);
+        this.slots = new Semaphore(maxSessions);
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = 2323;
+        String bind = "0.0.0.0";
+        int maxSessions = 10_000;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--bind" -> bind = args[++i];
+                case "--max-sessions" -> maxSessions = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        try (BattleServer server = new BattleServer(InetAddress.getByName(bind), port, maxSessions)) {
+            System.out.println("Codémon server on " + bind + ":" + server.port() + " (try: telnet localhost " + server.port() + ")");
+            server.acceptLoop();
+        }
+    }
+
+    // Accepts in the background until close(); for running alongside a client in one JVM
+    public BattleServer start() {
+        Thread.ofVirtual().name("battle-server").start(this::acceptLoop);
+        return this;
+    }
+
+    public int port() {
+        return socket.getLocalPort();
+    }
+
+    public long sessionsStarted() { return started.get(); }
+    public long sessionsFinished() { return finished.get(); }
+
+    private void acceptLoop() {
+        while (!socket.isClosed()) {
+            Socket client;
+            try {
+                client = socket.accept();
+            } catch (IOException e) {
+                if (socket.isClosed()) return;
+                System.out.println("Accept failed: " + e.getMessage());
+                continue;
+            }
+            if (!slots.tryAcquire()) {
+                refuse(client);
+                continue;
+            }
+            started.incrementAndGet();
+            Thread.ofVirtual().name("session-" + client.getPort()).start(() -> {
+                try {
+                    serve(client);
+                } finally {
+                    finished.incrementAndGet();
+                    slots.release();
+                }
+            });
+        }
+    }
+
+    private static void serve(Socket client) {
+        try (client) {
+            client.setTcpNoDelay(true);
+            PrintStream out = new PrintStream(new CrlfOutputStream(client.getOutputStream()), false, StandardCharsets.UTF_8);
+            Session session = new Session(client.getInputStream(), out, client);
+            MainMenu.run(session);
+        } catch (NoSuchElementException | IllegalStateException e) {
+            // The player hung up mid-prompt
+        } catch (Exception e) {
+            System.out.println("Session ended with an error: " + e);
+        }
+    }
+
+    private static void refuse(Socket client) {
+        try (client) {
+            client.getOutputStream().write("Server full, try again later.\r\n".getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            // Nothing more to tell them
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+
+    // Network terminals expect CRLF; the game writes bare LF. One write in, one write out.
+    private static final class CrlfOutputStream extends FilterOutputStream {
+        CrlfOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (b == '\n') out.write('\r');
+            out.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            byte[] converted = new byte[len * 2];
+            int n = 0;
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') converted[n++] = '\r';
+                converted[n++] = b[i];
+            }
+            out.write(converted, 0, n);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package Codemon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+// Runs seeded battles between random roster members on every core and reports battles/sec.
+// Battle i always uses the same generator for a given seed, so totals are reproducible
+// no matter how the work is split.
+//
+//   BattleSimulator [battles] [seed]
+public final class BattleSimulator {
+    private static final int CHUNK = 4096;
+
+    // Tally slots
+    private static final int WINS_A = 0, WINS_B = 1, DRAWS = 2, TURNS = 3, DAMAGE_A = 4, DAMAGE_B = 5;
+
+    public static void main(String[] args) {
+        long battles = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+
+        List<Species> roster = loadRoster();
+        System.out.println("Roster: " + roster.size() + " species, "
+            + ForkJoinPool.commonPool().getParallelism() + " worker threads");
+
+        // Warm-up pass so the timed run measures compiled code
+        ForkJoinPool.commonPool().invoke(new Batch(roster, seed + 1, 0, Math.min(battles, 100_000)));
+
+        long start = System.nanoTime();
+        long[] tally = ForkJoinPool.commonPool().invoke(new Batch(roster, seed, 0, battles));
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("%d battles in %.2f s: %,.0f battles/sec%n", battles, seconds, battles / seconds);
+        System.out.printf("Side A wins %d, side B wins %d, draws %d%n", tally[WINS_A], tally[WINS_B], tally[DRAWS]);
+        System.out.printf("Average %.2f turns, %.1f damage by A, %.1f damage by B%n",
+            (double) tally[TURNS] / battles, (double) tally[DAMAGE_A] / battles, (double) tally[DAMAGE_B] / battles);
+    }
+
+    static List<Species> loadRoster() {
+        if (SpeciesSnapshot.get() == null) {
+            System.out.println("No species snapshot; loading the roster from PokéAPI...");
+        }
+        List<Species> roster = new ArrayList<>();
+        for (int id = 1; id <= 151; id++) roster.add(Factory.createFromAPI(id));
+        return roster;
+    }
+
+    static BattleResult simulate(List<Species> roster, long seed, long battle) {
+        SplittableRandom rng = new SplittableRandom(seedFor(seed, battle));
+        Species a = roster.get(rng.nextInt(roster.size()));
+        Species b = roster.get(rng.nextInt(roster.size()));
+        return BattleEngine.fight(a, b, MovePolicy.random(), MovePolicy.random(), rng, BattleListener.NONE);
+    }
+
+    // Independent, well-mixed seed per battle (SplittableRandom's own finalizer constants)
+    static long seedFor(long seed, long battle) {
+        long z = seed + battle * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    @SuppressWarnings("serial")
+    private static final class Batch extends RecursiveTask<long[]> {
+        private final List<Species> roster;
+        private final long seed, from, to;
+
+        Batch(List<Species> roster, long seed, long from, long to) {
+            this.roster = roster;
+            this.seed = seed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > CHUNK) {
+                long mid = (from + to) >>> 1;
+                Batch left = new Batch(roster, seed, from, mid);
+                left.fork();
+                long[] right = new Batch(roster, seed, mid, to).compute();
+                long[] sum = left.join();
+                for (int i = 0; i < sum.length; i++) sum[i] += right[i];
+                return sum;
+            }
+            long[] tally = new long[6];
+            for (long i = from; i < to; i++) {
+                BattleResult r = simulate(roster, seed, i);
+                switch (r.winner()) {
+                    case BattleResult.SIDE_A -> tally[WINS_A]++;
+                    case BattleResult.SIDE_B -> tally[WINS_B]++;
+                    default -> tally[DRAWS]++;
+                }
+                tally[TURNS] += r.turns();
+                tally[DAMAGE_A] += r.damageByA();
+                tally[DAMAGE_B] += r.damageByB();
+            }
+            return tally;
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package Codemon;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.random.RandomGenerator;
+
+// Both combatants of a battle packed into one int[], for search and simulation.
+// Types and damage classes are ordinals, moves are inlined, so copying a state is
+// a single arraycopy and playing a turn touches no objects besides the generator.
+// BattleEngine's turn loop and the search AI's rollouts both run on it, so there
+// is one copy of the rules, random rolls included.
+public final class BattleState {
+    public static final int SIDE_A = BattleResult.SIDE_A;
+    public static final int SIDE_B = BattleResult.SIDE_B;
+    public static final int MAX_MOVES = 4;
+
+    // Per-side layout
+    static final int HP = 0, MAX_HP = 1, ATTACK = 2, DEFENSE = 3, LEVEL = 4, TYPE = 5, TYPE2 = 6, MOVE_COUNT = 7;
+    static final int MOVES = 8;
+    // Per-move layout, MAX_MOVES slots starting at MOVES
+    static final int POWER = 0, ACCURACY = 1, MOVE_TYPE = 2, DAMAGE_CLASS = 3;
+    static final int MOVE_SIZE = 4;
+    static final int SIDE_SIZE = MOVES + MAX_MOVES * MOVE_SIZE;
+
+    // Damage class ordinals
+    static final int PHYSICAL = 0, SPECIAL = 1, STATUS = 2;
+
+    // The random parts of an attack: a crit one time in CRIT_ODDS, and a variance factor
+    // uniform in [MIN_VARIANCE, MIN_VARIANCE + VARIANCE_RANGE)
+    static final int CRIT_ODDS = 16;
+    static final double CRIT_MULTIPLIER = 1.5;
+    static final double MIN_VARIANCE = 0.85, VARIANCE_RANGE = 0.15;
+
+    final int[] data = new int[2 * SIDE_SIZE];
+    // Details of the last attack, for the listener; not part of the copied state
+    private boolean lastCrit;
+    private double lastTypeMultiplier = 1.0;
+
+    public static BattleState of(Species a, Species b) {
+        BattleState state = new BattleState();
+        state.load(SIDE_A, a);
+        state.load(SIDE_B, b);
+        return state;
+    }
+
+    private void load(int side, Species s) {
+        int o = side * SIDE_SIZE;
+        data[o + HP] = s.getHp();
+        data[o + MAX_HP] = s.getHp();
+        data[o + ATTACK] = s.getAttack();
+        data[o + DEFENSE] = s.getDefense();
+        data[o + LEVEL] = s.getLevel();
+        data[o + TYPE] = typeOrdinal(s.getType());
+        data[o + TYPE2] = typeOrdinal(s.getSecondaryType());
+        List<Move> moves = s.getMoves();
+        int count = Math.min(MAX_MOVES, moves.size());
+        data[o + MOVE_COUNT] = count;
+        for (int i = 0; i < count; i++) {
+            Move m = moves.get(i);
+            int p = o + MOVES + i * MOVE_SIZE;
+            data[p + POWER] = m.getPower();
+            data[p + ACCURACY] = m.getAccuracy();
+            data[p + MOVE_TYPE] = typeOrdinal(m.getType());
+            data[p + DAMAGE_CLASS] = damageClassOrdinal(m.getDamageClass());
+        }
+    }
+
+    public void copyFrom(BattleState other) {
+        System.arraycopy(other.data, 0, data, 0, data.length);
+    }
+
+    public BattleState copy() {
+        BattleState state = new BattleState();
+        state.copyFrom(this);
+        return state;
+    }
+
+    public int hp(int side) { return data[side * SIDE_SIZE + HP]; }
+    public int maxHp(int side) { return data[side * SIDE_SIZE + MAX_HP]; }
+    public int level(int side) { return data[side * SIDE_SIZE + LEVEL]; }
+    public int moveCount(int side) { return data[side * SIDE_SIZE + MOVE_COUNT]; }
+    public boolean lastCrit() { return lastCrit; }
+    public double lastTypeMultiplier() { return lastTypeMultiplier; }
+
+    // Hard mode's opponent: five levels up, double HP, attack and defense
+    public void boost(int side) {
+        int o = side * SIDE_SIZE;
+        data[o + LEVEL] += 5;
+        data[o + HP] *= 2;
+        data[o + MAX_HP] = data[o + HP];
+        data[o + ATTACK] *= 2;
+        data[o + DEFENSE] *= 2;
+    }
+
+    // Side that acts first this round: the higher level, side A on ties
+    public int firstToAct() {
+        return data[LEVEL] >= data[SIDE_SIZE + LEVEL] ? SIDE_A : SIDE_B;
+    }
+
+    // Plays both chosen moves in turn order; returns the side that fainted its foe, or -1
+    public int playTurn(int moveA, int moveB, RandomGenerator rng) {
+        int first = firstToAct();
+        int second = 1 - first;
+        attack(first, first == SIDE_A ? moveA : moveB, rng);
+        if (hp(second) <= 0) return first;
+        attack(second, second == SIDE_A ? moveA : moveB, rng);
+        if (hp(first) <= 0) return second;
+        return -1;
+    }
+
+    // One move from side against the other; returns the damage dealt (0 on a miss)
+    public int attack(int side, int move, RandomGenerator rng) {
+        int a = side * SIDE_SIZE;
+        int d = (1 - side) * SIDE_SIZE;
+        int m = a + MOVES + move * MOVE_SIZE;
+
+        if (rng.nextInt(100) >= data[m + ACCURACY]) {
+            lastCrit = false;
+            lastTypeMultiplier = 1.0;
+            return 0;
+        }
+        boolean crit = rng.nextInt(CRIT_ODDS) == 0;
+        int moveType = data[m + MOVE_TYPE];
+        double stab = stab(moveType, data[a + TYPE], data[a + TYPE2]);
+        double typeMultiplier = TypeEffectiveness.getMultiplier(moveType, data[d + TYPE], data[d + TYPE2]);
+        double variance = MIN_VARIANCE + (rng.nextDouble() * VARIANCE_RANGE);
+
+        int damage = BattleEngine.calculatePokemonDamage(data[a + LEVEL], data[a + ATTACK], data[d + DEFENSE],
+            data[m + POWER], typeMultiplier, stab, crit ? CRIT_MULTIPLIER : 1.0, variance);
+        data[d + HP] = Math.max(0, data[d + HP] - damage);
+        lastCrit = crit;
+        lastTypeMultiplier = typeMultiplier;
+        return damage;
+    }
+
+    // Same-type attack bonus for a move of moveType used by a type/type2 attacker
+    static double stab(int moveType, int type, int type2) {
+        return moveType != Type.NONE && (moveType == type || moveType == type2) ? 1.5 : 1.0;
+    }
+
+    // Type names compare case-insensitively, as they did as strings
+    static int typeOrdinal(String name) {
+        return Type.ordinalOf(name == null ? null : name.toLowerCase(Locale.ROOT));
+    }
+
+    private static int damageClassOrdinal(String name) {
+        if ("special".equalsIgnoreCase(name)) return SPECIAL;
+        if ("status".equalsIgnoreCase(name)) return STATUS;
+        return PHYSICAL;
+    }
+}
@@ -0,0 +1,167 @@
+package Codemon;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+// In-memory index over the first 151 species, built once per process.
+// Names are kept in ID order and in sorted order (for prefix search by binary
+// search), plus a trigram index for substring search. Type and base stats come
+// from the species snapshot, so browsing never costs a request per entry.
+public final class Codex {
+    public static final int SIZE = 151;
+
+    private static volatile Codex instance;
+
+    private final String[] names;          // by id, 1-based
+    private final String[] keys;           // lowercase names, by id
+    private final Species[] species;       // by id, null when the snapshot doesn't have it
+    private final String[] sortedKeys;     // lowercase names, sorted
+    private final int[] sortedIds;         // id for each sorted key
+    private final Map<Integer, int[]> trigrams = new HashMap<>();
+
+    private Codex(String[] names, Species[] species) {
+        this.names = names;
+        this.species = species;
+        this.keys = new String[SIZE + 1];
+        for (int id = 1; id <= SIZE; id++) keys[id] = key(names[id]);
+
+        Integer[] order = new Integer[SIZE];
+        for (int i = 0; i < SIZE; i++) order[i] = i + 1;
+        Arrays.sort(order, Comparator.comparing(id -> keys[id]));
+        sortedKeys = new String[SIZE];
+        sortedIds = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            sortedIds[i] = order[i];
+            sortedKeys[i] = keys[order[i]];
+        }
+
+        Map<Integer, List<Integer>> postings = new HashMap<>();
+        for (int id = 1; id <= SIZE; id++) {
+            String k = keys[id];
+            for (int i = 0; i + 3 <= k.length(); i++) {
+                List<Integer> ids = postings.computeIfAbsent(trigram(k, i), t -> new ArrayList<>());
+                if (ids.isEmpty() || ids.get(ids.size() - 1) != id) ids.add(id);
+            }
+        }
+        postings.forEach((t, ids) -> trigrams.put(t, ids.stream().mapToInt(Integer::intValue).toArray()));
+    }
+
+    public static Codex get() throws IOException {
+        Codex c = instance;
+        if (c == null) {
+            synchronized (Codex.class) {
+                c = instance;
+                if (c == null) {
+                    c = load();
+                    instance = c;
+                }
+            }
+        }
+        return c;
+    }
+
+    private static Codex load() throws IOException {
+        String[] names = new String[SIZE + 1];
+        Species[] species = new Species[SIZE + 1];
+        boolean complete = true;
+        for (int id = 1; id <= SIZE; id++) {
+            species[id] = SpeciesSnapshot.load(id);
+            if (species[id] == null) complete = false;
+            else names[id] = species[id].getName();
+        }
+        if (!complete) {
+            // One listing request fills the gaps; over HTTP it is cached across runs
+            try {
+                JSONArray results = new JSONObject(new String(DataSources.get().fetch("pokemon?limit=" + SIZE), StandardCharsets.UTF_8))
+                    .getJSONArray("results");
+                for (int i = 0; i < results.length() && i < SIZE; i++) {
+                    if (names[i + 1] == null) names[i + 1] = capitalize(results.getJSONObject(i).getString("name"));
+                }
+            } catch (JSONException e) {
+                throw new IOException("Unreadable species listing: " + e.getMessage(), e);
+            }
+        }
+        for (int id = 1; id <= SIZE; id++) {
+            if (names[id] == null) names[id] = "#" + id;
+        }
+        return new Codex(names, species);
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    // Type and base stats from local data; null when they aren't held locally
+    public Species species(int id) {
+        return species[id];
+    }
+
+    // IDs whose name starts with the query (alphabetical), then those containing it elsewhere (by ID)
+    public int[] search(String query) {
+        String q = key(query);
+        if (q.isEmpty()) return new int[0];
+
+        int[] result = new int[SIZE];
+        boolean[] taken = new boolean[SIZE + 1];
+        int n = 0;
+        int from = lowerBound(q);
+        for (int i = from; i < SIZE && sortedKeys[i].startsWith(q); i++) {
+            result[n++] = sortedIds[i];
+            taken[sortedIds[i]] = true;
+        }
+
+        for (int id : substringCandidates(q)) {
+            if (!taken[id] && keys[id].contains(q)) result[n++] = id;
+        }
+        return Arrays.copyOf(result, n);
+    }
+
+    // Shortest trigram posting list for the query; every ID when the query is too short for one
+    private int[] substringCandidates(String q) {
+        if (q.length() < 3) {
+            int[] all = new int[SIZE];
+            for (int i = 0; i < SIZE; i++) all[i] = i + 1;
+            return all;
+        }
+        int[] best = null;
+        for (int i = 0; i + 3 <= q.length(); i++) {
+            int[] ids = trigrams.get(trigram(q, i));
+            if (ids == null) return new int[0];
+            if (best == null || ids.length < best.length) best = ids;
+        }
+        return best;
+    }
+
+    private int lowerBound(String q) {
+        int lo = 0, hi = SIZE;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sortedKeys[mid].compareTo(q) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private static int trigram(String s, int i) {
+        return (s.charAt(i) << 16) ^ (s.charAt(i + 1) << 8) ^ s.charAt(i + 2);
+    }
+
+    private static String key(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    private static String capitalize(String str) {
+        if (str == null || str.isEmpty()) return str;
+        return str.substring(0, 1).toUpperCase() + str.substring(1);
+    }
+}
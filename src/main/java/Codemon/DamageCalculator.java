@@ -0,0 +1,147 @@
+package Codemon;
+
+import java.util.Arrays;
+
+// Exact odds for one attack, from the same formula and rolls BattleState.attack uses:
+// accuracy, a crit one time in 16, then a variance factor uniform over [0.85, 1).
+// For each crit outcome damage is floor(B * variance) with B fixed, so each damage
+// value k comes from the variance interval [k / B, (k + 1) / B) and its probability
+// is that interval's share of the range. No sampling, so no noise.
+//
+// Repeated hits are independent, so the chance of a KO within n uses is the n-fold
+// convolution of one use's distribution, cut off at the defender's HP.
+public final class DamageCalculator {
+    private DamageCalculator() {}
+
+    // Move slot move of side, against the other side, as the battle stands (boost included)
+    public static Distribution of(BattleState state, int side, int move) {
+        int[] data = state.data;
+        int a = side * BattleState.SIDE_SIZE;
+        int d = (1 - side) * BattleState.SIDE_SIZE;
+        int m = a + BattleState.MOVES + move * BattleState.MOVE_SIZE;
+        int moveType = data[m + BattleState.MOVE_TYPE];
+        return of(data[a + BattleState.LEVEL], data[a + BattleState.ATTACK], data[d + BattleState.DEFENSE],
+            data[m + BattleState.POWER], data[m + BattleState.ACCURACY],
+            TypeEffectiveness.getMultiplier(moveType, data[d + BattleState.TYPE], data[d + BattleState.TYPE2]),
+            BattleState.stab(moveType, data[a + BattleState.TYPE], data[a + BattleState.TYPE2]));
+    }
+
+    // move used by attacker on defender, both as loaded (no Hard mode boost)
+    public static Distribution of(Species attacker, Species defender, Move move) {
+        int moveType = BattleState.typeOrdinal(move.getType());
+        return of(attacker.getLevel(), attacker.getAttack(), defender.getDefense(), move.getPower(), move.getAccuracy(),
+            TypeEffectiveness.getMultiplier(moveType, BattleState.typeOrdinal(defender.getType()),
+                BattleState.typeOrdinal(defender.getSecondaryType())),
+            BattleState.stab(moveType, BattleState.typeOrdinal(attacker.getType()),
+                BattleState.typeOrdinal(attacker.getSecondaryType())));
+    }
+
+    static Distribution of(int level, int attack, int defense, int power, int accuracy,
+                           double typeMultiplier, double stab) {
+        double hit = Math.max(0, Math.min(100, accuracy)) / 100.0;
+        double crit = 1.0 / BattleState.CRIT_ODDS;
+        double base = BattleEngine.baseDamage(level, attack, defense, power) * typeMultiplier * stab;
+        double normal = base, critical = base * BattleState.CRIT_MULTIPLIER;
+
+        // Floor of the largest product either outcome can reach, plus one for the floor at 1
+        int max = Math.max(1, (int) critical + 1);
+        double[] pmf = new double[max + 1];
+        spread(pmf, normal, hit * (1 - crit));
+        spread(pmf, critical, hit * crit);
+        return new Distribution(1 - hit, pmf);
+    }
+
+    // Adds weight to pmf over the damage values floor(b * variance) takes, by the share of
+    // the variance range giving each one; the engine never deals less than 1
+    private static void spread(double[] pmf, double b, double weight) {
+        if (weight == 0) return;
+        double from = BattleState.MIN_VARIANCE, to = BattleState.MIN_VARIANCE + BattleState.VARIANCE_RANGE;
+        if (b <= 0) {
+            pmf[1] += weight;
+            return;
+        }
+        int lowest = (int) Math.floor(b * from);
+        int highest = (int) Math.min(Math.ceil(b * to) - 1, pmf.length - 1);
+        for (int k = lowest; k <= highest; k++) {
+            double share = (Math.min(to, (k + 1) / b) - Math.max(from, k / b)) / BattleState.VARIANCE_RANGE;
+            if (share > 0) pmf[Math.max(1, k)] += weight * share;
+        }
+    }
+
+    // Damage from one use: a miss (0), or low .. low + hit.length - 1
+    public static final class Distribution {
+        private final double miss;
+        private final int low;
+        // hit[i] = P(damage == low + i); tail[i] = P(damage >= low + i), tail[hit.length] = 0
+        private final double[] hit;
+        private final double[] tail;
+
+        Distribution(double miss, double[] pmf) {
+            int low = 1, high = pmf.length - 1;
+            while (low < high && pmf[low] == 0) low++;
+            while (high > low && pmf[high] == 0) high--;
+            this.miss = miss;
+            this.low = low;
+            this.hit = Arrays.copyOfRange(pmf, low, high + 1);
+            this.tail = new double[hit.length + 1];
+            for (int i = hit.length - 1; i >= 0; i--) tail[i] = tail[i + 1] + hit[i];
+        }
+
+        public double hitChance() { return 1 - miss; }
+        // Least and most damage a hit can do
+        public int min() { return low; }
+        public int max() { return low + hit.length - 1; }
+
+        public double probability(int damage) {
+            if (damage == 0) return miss;
+            int i = damage - low;
+            return i < 0 || i >= hit.length ? 0 : hit[i];
+        }
+
+        public double mean() {
+            double sum = 0;
+            for (int i = 0; i < hit.length; i++) sum += (low + i) * hit[i];
+            return sum;
+        }
+
+        // Chance that a defender with hp left has fainted within 1 .. uses uses; [n - 1] is "within n"
+        public double[] koChances(int hp, int uses) {
+            double[] chances = new double[uses];
+            if (hp <= 0) {
+                Arrays.fill(chances, 1);
+                return chances;
+            }
+            // alive[t]: chance the uses so far dealt exactly t in total, t < hp
+            double[] alive = new double[hp];
+            double[] next = new double[hp];
+            alive[0] = 1;
+            int reach = 0; // highest t with alive[t] possibly non-zero
+            double ko = 0;
+            for (int n = 0; n < uses; n++) {
+                Arrays.fill(next, 0, Math.min(hp, reach + max() + 1), 0);
+                int nextReach = reach;
+                for (int t = 0; t <= reach; t++) {
+                    double p = alive[t];
+                    if (p == 0) continue;
+                    next[t] += p * miss;
+                    // Offsets below survivors still leave the defender standing; the rest is a KO
+                    int survivors = Math.max(0, Math.min(hit.length, hp - t - low));
+                    int o = t + low;
+                    for (int i = 0; i < survivors; i++) next[o + i] += p * hit[i];
+                    if (survivors > 0) nextReach = Math.max(nextReach, o + survivors - 1);
+                    ko += p * tail[survivors];
+                }
+                double[] swap = alive;
+                alive = next;
+                next = swap;
+                reach = nextReach;
+                chances[n] = Math.min(1, ko);
+            }
+            return chances;
+        }
+
+        public double koChance(int hp, int uses) {
+            return koChances(hp, uses)[uses - 1];
+        }
+    }
+}
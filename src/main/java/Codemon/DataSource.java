@@ -0,0 +1,26 @@
+package Codemon;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+// Where game data comes from. Paths are relative to the API root, the way
+// PokéAPI names them: "pokemon/25", "move/tackle", "pokemon?limit=151".
+// A missing document fails with FileNotFoundException, anything else with IOException.
+public interface DataSource {
+    CompletableFuture<byte[]> fetchAsync(String path);
+
+    // Blocks until the data arrives; interrupting the caller abandons the wait
+    default byte[] fetch(String path) throws IOException {
+        try {
+            return fetchAsync(path).get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Fetch of " + path + " abandoned");
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package Codemon;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+// The process-wide DataSource, chosen by -Dcodemon.data:
+//   (unset)                 PokéAPI over HTTP
+//   http(s)://host/api/v2   any PokéAPI-compatible server
+//   classpath:/root         fixtures on the classpath
+//   stub:<fixtures>         an in-process StubServer over fixtures, -Dcodemon.stub.latency=<ms>,
+//                           faults from -Dcodemon.stub.errorRate, .slowRate and .slowMs
+//   <dir>                   fixtures in a directory
+// Remote sources go through ResilientDataSource, so no fetch outlasts its deadline.
+// With -Dcodemon.record=<dir>, every response is also saved there as a fixture,
+// so one online session produces fixtures for offline ones.
+public final class DataSources {
+    private static volatile DataSource current;
+
+    private DataSources() {}
+
+    public static DataSource get() {
+        DataSource source = current;
+        if (source == null) {
+            synchronized (DataSources.class) {
+                source = current;
+                if (source == null) {
+                    try {
+                        source = of(System.getProperty("codemon.data", HttpDataSource.POKEAPI));
+                    } catch (IOException e) {
+                        throw new UncheckedIOException("Can't open data source", e);
+                    }
+                    String record = System.getProperty("codemon.record");
+                    if (record != null) source = recording(source, Path.of(record));
+                    current = source;
+                }
+            }
+        }
+        return source;
+    }
+
+    // For tools that take a source on the command line
+    public static void set(DataSource source) {
+        current = source;
+    }
+
+    public static DataSource of(String spec) throws IOException {
+        if (spec.startsWith("http://") || spec.startsWith("https://")) {
+            return timed(new ResilientDataSource(new HttpDataSource(spec)));
+        }
+        if (spec.startsWith("stub:")) {
+            StubServer stub = StubServer.start(new FixtureDataSource(spec.substring(5)), 0,
+                Long.getLong("codemon.stub.latency", 0));
+            stub.setFaults(StubServer.Faults.fromProperties());
+            // Uncached: a stub run mustn't fill the real cache, nor cache hits hide its faults
+            return timed(new ResilientDataSource(new HttpDataSource(stub.baseUrl(), false)));
+        }
+        return timed(new FixtureDataSource(spec));
+    }
+
+    // Every fetch lands in Metrics.FETCH and, when JFR is recording, a codemon.Fetch event
+    static DataSource timed(DataSource source) {
+        return new DataSource() {
+            @Override
+            public CompletableFuture<byte[]> fetchAsync(String path) {
+                FetchEvent event = new FetchEvent();
+                event.begin();
+                long start = Metrics.start();
+                return source.fetchAsync(path).whenComplete((body, error) -> {
+                    Metrics.stop(Metrics.FETCH, start);
+                    if (error != null) Metrics.FETCH_ERRORS.increment();
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.path = path;
+                        event.bytes = body == null ? 0 : body.length;
+                        event.failed = error != null;
+                        event.commit();
+                    }
+                });
+            }
+
+            @Override
+            public String toString() {
+                return source.toString();
+            }
+        };
+    }
+
+    static DataSource recording(DataSource source, Path dir) {
+        return path -> source.fetchAsync(path).thenApply(body -> {
+            try {
+                FixtureDataSource.record(dir, path, body);
+            } catch (IOException e) {
+                // Recording is best effort; the caller still gets its data
+            }
+            return body;
+        });
+    }
+}
@@ -1,89 +1,328 @@
 package Codemon;
 
-import org.json.JSONObject;
-import org.json.JSONArray;
-import java.io.*;
-import java.net.*;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.Function;
 
 public class Factory {
+    // How far ahead of the current move we fetch, and how many move requests may be in flight overall
+    private static final int MOVE_LOOKAHEAD = 8;
+    private static final Semaphore MOVE_PERMITS = new Semaphore(16);
+    private static final ExecutorService MOVE_FETCHER = Executors.newVirtualThreadPerTaskExecutor();
+    // Shared by every species, so concurrent lookups of the same move ride on one request
+    private static final Map<String, CompletableFuture<Move>> MOVES = new ConcurrentHashMap<>();
+    private static final ExecutorService SPECIES_LOADER = Executors.newVirtualThreadPerTaskExecutor();
+    // Battles run on a BattleState and never touch their Species, so one copy per ID serves every session
+    private static final Map<Integer, Species> SPECIES = new ConcurrentHashMap<>();
+    // Stands in for a species that failed to load; never cached, so the next battle retries.
+    // Middling stats, since a battle may really be fought with it when nothing else is loaded.
+    private static final Species MISSING_NO = new Species("MissingNo", "normal", 5, 48, 48, 48, List.of(Move.STRUGGLE));
+
+    // Loads in the background; cancelling the future interrupts a load that is still running
+    public static CompletableFuture<Species> createAsync(int id) {
+        CompletableFuture<Species> result = new CompletableFuture<>();
+        Future<?> task = SPECIES_LOADER.submit(() -> {
+            try {
+                result.complete(createFromAPI(id));
+            } catch (Throwable t) {
+                result.completeExceptionally(t);
+            }
+        });
+        result.whenComplete((species, error) -> {
+            if (result.isCancelled()) task.cancel(true);
+        });
+        return result;
+    }
+
     public static Species createFromAPI(int id) {
-        try {
-            URL url = URI.create("https://pokeapi.co/api/v2/pokemon/" + id).toURL();
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-
-            BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                response.append(line);
+        Species cached = SPECIES.get(id);
+        if (cached != null) return cached;
+
+        SpeciesEvent event = new SpeciesEvent();
+        event.begin();
+        long start = Metrics.start();
+
+        // The bundled snapshot covers the roster; only go to the network for what it lacks
+        Species species = SpeciesSnapshot.load(id);
+        boolean fromSnapshot = species != null;
+        if (!fromSnapshot) species = fetchFromAPI(id);
+
+        Metrics.stop(Metrics.SPECIES, start);
+        (fromSnapshot ? Metrics.SNAPSHOT_LOADS : Metrics.API_LOADS).increment();
+        event.end();
+        if (event.shouldCommit()) {
+            event.id = id;
+            event.name = species.getName();
+            event.fromSnapshot = fromSnapshot;
+            event.commit();
+        }
+        if (species != MISSING_NO) SPECIES.putIfAbsent(id, species);
+        return species;
+    }
+
+    // Whether a load came back with nothing
+    public static boolean isMissing(Species species) {
+        return species == MISSING_NO;
+    }
+
+    // Something to battle with when id didn't arrive in time: the ID of the loaded species
+    // nearest to it by number, or 0 (MissingNo) before anything has loaded at all
+    public static int standInId(int id) {
+        int best = 0;
+        int bestDistance = Integer.MAX_VALUE;
+        for (int loaded : SPECIES.keySet()) {
+            int distance = Math.abs(loaded - id);
+            if (distance < bestDistance) {
+                best = loaded;
+                bestDistance = distance;
             }
-            reader.close();
-
-            JSONObject obj = new JSONObject(response.toString());
-            String name = capitalize(obj.getString("name"));
-            String type = obj.getJSONArray("types").getJSONObject(0).getJSONObject("type").getString("name");
-
-            JSONArray stats = obj.getJSONArray("stats");
-            int hp = stats.getJSONObject(0).getInt("base_stat");
-            int attack = stats.getJSONObject(1).getInt("base_stat");
-            int defense = stats.getJSONObject(2).getInt("base_stat");
-
-            JSONArray moveArray = obj.getJSONArray("moves");
-            List<Move> moves = new ArrayList<>();
-            
-            // Get up to 4 moves that have power > 0
-            for (int i = 0; i < moveArray.length() && moves.size() < 4; i++) {
-                JSONObject moveObj = moveArray.getJSONObject(i);
-                String moveName = moveObj.getJSONObject("move").getString("name");
-                Move move = fetchMove(moveName);
-                if (move != null && move.getPower() > 0) {
-                    moves.add(move);
+        }
+        return best;
+    }
+
+    // The species already loaded for id, or MissingNo; loaded species are never evicted
+    public static Species loaded(int id) {
+        return SPECIES.getOrDefault(id, MISSING_NO);
+    }
+
+    static Species fetchFromAPI(int id) {
+        try {
+            byte[] json = DataSources.get().fetch("pokemon/" + id);
+            return parseSpecies(new ByteArrayInputStream(json), Factory::moveAsync);
+        } catch (Exception e) {
+            // Often a background prefetch with no screen of its own; BattleGame.arrive reports the stand-in
+            return MISSING_NO;
+        }
+    }
+
+    private static final byte[] NAME = JsonStream.key("name");
+    private static final byte[] TYPES = JsonStream.key("types");
+    private static final byte[] STATS = JsonStream.key("stats");
+    private static final byte[] MOVES_KEY = JsonStream.key("moves");
+    private static final byte[] SLOT = JsonStream.key("slot");
+    private static final byte[] TYPE = JsonStream.key("type");
+    private static final byte[] BASE_STAT = JsonStream.key("base_stat");
+    private static final byte[] STAT = JsonStream.key("stat");
+    private static final byte[] MOVE = JsonStream.key("move");
+    private static final byte[] POWER = JsonStream.key("power");
+    private static final byte[] ACCURACY = JsonStream.key("accuracy");
+    private static final byte[] DAMAGE_CLASS = JsonStream.key("damage_class");
+
+    // Base stats in the order /pokemon lists them
+    static final String[] STAT_NAMES = { "hp", "attack", "defense", "special-attack", "special-defense", "speed" };
+
+    // The parts of a /pokemon document the game uses: name as the API spells it (lowercase),
+    // stats[i] is STAT_NAMES[i], and moveNames is the whole learnset, in API order
+    record Document(String name, String type, String secondaryType, int[] stats, List<String> moveNames) {
+        String displayName() { return capitalize(name); }
+        int hp() { return stats[0]; }
+        int attack() { return stats[1]; }
+        int defense() { return stats[2]; }
+    }
+
+    static Species parseSpecies(InputStream json, Function<String, CompletableFuture<Move>> moveLookup) throws IOException {
+        Document d = parseDocument(json);
+        return buildSpecies(d.displayName(), d.type(), d.secondaryType(), d.hp(), d.attack(), d.defense(), d.moveNames(),
+            moveLookup);
+    }
+
+    // Streams a /pokemon document, keeping only name, types, base stats and move names.
+    // Everything else (sprites, version_group_details, ...) is skipped without being materialized.
+    static Document parseDocument(InputStream json) throws IOException {
+        long start = Metrics.start();
+        JsonStream in = new JsonStream(json);
+        String name = null;
+        String type = null;
+        String secondaryType = null;
+        int[] stats = new int[STAT_NAMES.length];
+        List<String> moveNames = new ArrayList<>();
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextKey(NAME, TYPES, STATS, MOVES_KEY)) {
+                case 0 -> name = in.nextString();
+                case 1 -> {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        int slot = 1;
+                        String typeName = null;
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            switch (in.nextKey(SLOT, TYPE)) {
+                                case 0 -> slot = in.nextInt(1);
+                                case 1 -> typeName = nestedName(in);
+                                default -> in.skipValue();
+                            }
+                        }
+                        in.endObject();
+                        if (slot == 1) type = typeName;
+                        else secondaryType = typeName;
+                    }
+                    in.endArray();
+                }
+                case 2 -> {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        int value = 0;
+                        String statName = null;
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            switch (in.nextKey(BASE_STAT, STAT)) {
+                                case 0 -> value = in.nextInt(0);
+                                case 1 -> statName = nestedName(in);
+                                default -> in.skipValue();
+                            }
+                        }
+                        in.endObject();
+                        for (int s = 0; s < STAT_NAMES.length; s++) {
+                            if (STAT_NAMES[s].equals(statName)) stats[s] = value;
+                        }
+                    }
+                    in.endArray();
+                }
+                case 3 -> {
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            if (in.nextKey(MOVE) == 0) moveNames.add(nestedName(in));
+                            else in.skipValue();
+                        }
+                        in.endObject();
+                    }
+                    in.endArray();
                 }
+                default -> in.skipValue();
             }
+        }
+        if (name == null || type == null) throw new IOException("Not a Pokémon document");
+        Metrics.stop(Metrics.PARSE, start);
+        return new Document(name, type, secondaryType, stats, moveNames);
+    }
 
-            // Add "Struggle" if no moves were found
-            if (moves.isEmpty()) {
-                moves.add(new Move("Struggle", "normal", 50, 100, "physical"));
+    static Species buildSpecies(String name, String type, String secondaryType, int hp, int attack, int defense,
+                                List<String> moveNames, Function<String, CompletableFuture<Move>> moveLookup) {
+        // When the snapshot's catalog knows the whole learnset, pick the best set without a single request
+        MoveCatalog catalog = SpeciesSnapshot.catalog();
+        if (catalog != null && !moveNames.isEmpty()) {
+            int[] ids = new int[moveNames.size()];
+            int known = 0;
+            while (known < ids.length && (ids[known] = catalog.id(moveNames.get(known))) >= 0) known++;
+            if (known == ids.length) {
+                return new Species(name, type, secondaryType, 5, hp, attack, defense,
+                    catalog.best(ids, Type.ordinalOf(type), Type.ordinalOf(secondaryType)));
             }
+        }
 
-            return new Species(name, type, 5, hp, attack, defense, moves);
-        } catch (Exception e) {
-            System.out.println("Error fetching Pokémon: " + e.getMessage());
-            return new Species("MissingNo", "normal", 1, 1, 1, 1, 
-                List.of(new Move("Struggle", "normal", 50, 100, "physical")));
+        List<CompletableFuture<Move>> lookups = new ArrayList<>();
+        List<Move> moves = new ArrayList<>();
+
+        // Otherwise the first 4 moves that have power > 0, in list order, keeping a window of lookups in flight
+        for (int i = 0; i < moveNames.size() && moves.size() < 4; i++) {
+            while (lookups.size() < moveNames.size() && lookups.size() < i + MOVE_LOOKAHEAD) {
+                String moveName = moveNames.get(lookups.size());
+                int known = catalog == null ? -1 : catalog.id(moveName);
+                lookups.add(known >= 0 ? CompletableFuture.completedFuture(catalog.move(known)) : moveLookup.apply(moveName));
+            }
+            Move move = await(lookups.get(i));
+            if (move != null && move.getPower() > 0) {
+                moves.add(move);
+            }
+        }
+
+        // Add "Struggle" if no moves were found
+        if (moves.isEmpty()) {
+            moves.add(Move.STRUGGLE);
         }
+
+        return new Species(name, type, secondaryType, 5, hp, attack, defense, moves);
     }
 
-    private static Move fetchMove(String moveName) {
+    // Like join(), but gives up when the loading thread is interrupted
+    private static Move await(CompletableFuture<Move> lookup) {
         try {
-            URL url = URI.create("https://pokeapi.co/api/v2/move/" + moveName).toURL();
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-
-            BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) {
-                response.append(line);
-            }
-            reader.close();
+            return lookup.get();
+        } catch (ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Species load abandoned");
+        }
+    }
 
-            JSONObject obj = new JSONObject(response.toString());
-            String type = obj.getJSONObject("type").getString("name");
-            int power = obj.optInt("power", 0);
-            int accuracy = obj.optInt("accuracy", 100);
-            String damageClass = obj.getJSONObject("damage_class").getString("name");
+    static CompletableFuture<Move> moveAsync(String moveName) {
+        CompletableFuture<Move> lookup = MOVES.computeIfAbsent(moveName,
+            n -> CompletableFuture.supplyAsync(() -> fetchMove(n), MOVE_FETCHER));
+        // Don't pin failures in the cache; the next lookup gets to try again
+        lookup.thenAccept(move -> {
+            if (move == null) MOVES.remove(moveName, lookup);
+        });
+        return lookup;
+    }
 
-            return new Move(capitalize(moveName), type, power, accuracy, damageClass);
+    private static Move fetchMove(String moveName) {
+        try {
+            return loadMove(moveName);
         } catch (Exception e) {
             return null;
         }
     }
 
+    // One move straight from the data source, no caching; FileNotFoundException when the API has no such move
+    static Move loadMove(String moveName) throws IOException {
+        try {
+            MOVE_PERMITS.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Fetch of move/" + moveName + " abandoned");
+        }
+        try {
+            byte[] json = DataSources.get().fetch("move/" + moveName);
+            return parseMove(moveName, new ByteArrayInputStream(json));
+        } finally {
+            MOVE_PERMITS.release();
+        }
+    }
+
+    static Move parseMove(String moveName, InputStream json) throws IOException {
+        JsonStream in = new JsonStream(json);
+        String type = null;
+        String damageClass = null;
+        int power = 0;
+        int accuracy = 100;
+
+        in.beginObject();
+        while (in.hasNext()) {
+            switch (in.nextKey(TYPE, POWER, ACCURACY, DAMAGE_CLASS)) {
+                case 0 -> type = nestedName(in);
+                case 1 -> power = in.nextInt(0);
+                case 2 -> accuracy = in.nextInt(100);
+                case 3 -> damageClass = nestedName(in);
+                default -> in.skipValue();
+            }
+        }
+        if (type == null || damageClass == null) throw new IOException("Not a move document");
+        return new Move(capitalize(moveName), type, power, accuracy, damageClass);
+    }
+
+    // {"name": "...", "url": "..."} -> name
+    static String nestedName(JsonStream in) throws IOException {
+        String name = null;
+        in.beginObject();
+        while (in.hasNext()) {
+            if (in.nextKey(NAME) == 0) name = in.nextString();
+            else in.skipValue();
+        }
+        in.endObject();
+        return name;
+    }
+
     private static String capitalize(String str) {
         if (str == null || str.isEmpty()) return str;
         return str.substring(0, 1).toUpperCase() + str.substring(1);
     }
-}
\ No newline at end of file
+}
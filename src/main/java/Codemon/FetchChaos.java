@@ -0,0 +1,148 @@
+package Codemon;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Starts battles against a StubServer that misbehaves, and reports how long each start
+// took and how many had to use a stand-in. A start loads two species straight from the
+// data source, as for a roster miss: no snapshot, no species cache, no HTTP cache.
+// Moves are still shared between species, as in the game.
+//
+//   FetchChaos [--starts 300] [--concurrency 8] [--fixtures dir] [--latency 20]
+//              [--error-rate 0.1] [--slow-rate 0.02] [--slow-ms 4000]
+//              [--budget 3000] [--rate startsPerSecond] [--outage fromSec:toSec] [--plain]
+//
+// --rate paces starts like arriving players; without it they go back to back.
+// --outage makes every request fail for that stretch of the run, to show the circuit
+// breaker. --plain fetches without deadlines, hedging or breaker, waiting as long as a
+// load takes; compare the two runs.
+public final class FetchChaos {
+    public static void main(String[] args) throws Exception {
+        int starts = 300, concurrency = 8;
+        String fixtures = "fixtures";
+        long latency = 20, slowMillis = 4000, budget = 3000;
+        double errorRate = 0.1, slowRate = 0.02;
+        double outageFrom = -1, outageTo = -1, rate = 0;
+        boolean plain = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--starts" -> starts = Integer.parseInt(args[++i]);
+                case "--concurrency" -> concurrency = Integer.parseInt(args[++i]);
+                case "--fixtures" -> fixtures = args[++i];
+                case "--latency" -> latency = Long.parseLong(args[++i]);
+                case "--error-rate" -> errorRate = Double.parseDouble(args[++i]);
+                case "--slow-rate" -> slowRate = Double.parseDouble(args[++i]);
+                case "--slow-ms" -> slowMillis = Long.parseLong(args[++i]);
+                case "--budget" -> budget = Long.parseLong(args[++i]);
+                case "--outage" -> {
+                    String[] range = args[++i].split(":");
+                    outageFrom = Double.parseDouble(range[0]);
+                    outageTo = Double.parseDouble(range[1]);
+                }
+                case "--rate" -> rate = Double.parseDouble(args[++i]);
+                case "--plain" -> plain = true;
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        StubServer stub = StubServer.start(new FixtureDataSource(fixtures), 0, latency);
+        StubServer.Faults faults = new StubServer.Faults(errorRate, slowRate, slowMillis);
+        stub.setFaults(faults);
+        // Uncached, so every request reaches the stub
+        DataSource http = new HttpDataSource(stub.baseUrl(), false);
+        DataSources.set(DataSources.timed(plain ? http : new ResilientDataSource(http)));
+        System.out.printf("%s pipeline, %d ms stub latency, %s, %d ms budget%n",
+            plain ? "Plain" : "Resilient", latency, faults, budget);
+
+        ExecutorService loader = Executors.newVirtualThreadPerTaskExecutor();
+        LatencyHistogram startTimes = new LatencyHistogram("Start");
+        AtomicInteger next = new AtomicInteger();
+        // Plain has no deadline, so a missing species there is a failed load; otherwise a stand-in
+        AtomicLong missing = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        int total = starts;
+        long interval = rate > 0 ? (long) (1e9 / rate) : 0;
+        long budgetNanos = plain ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(budget);
+        long began = System.nanoTime();
+        if (outageFrom >= 0) {
+            long from = (long) (outageFrom * 1000), to = (long) (outageTo * 1000);
+            Thread.ofVirtual().start(() -> {
+                try {
+                    Thread.sleep(from);
+                    stub.setFaults(new StubServer.Faults(1, 0, 0));
+                    Thread.sleep(to - from);
+                    stub.setFaults(faults);
+                } catch (InterruptedException e) {
+                    // Run over
+                }
+            });
+        }
+        for (int c = 0; c < concurrency; c++) {
+            SplittableRandom rng = new SplittableRandom(42 + c);
+            Thread.ofVirtual().start(() -> {
+                try {
+                    for (int n; (n = next.getAndIncrement()) < total; ) {
+                        long due = began + n * interval - System.nanoTime();
+                        if (due > 0) TimeUnit.NANOSECONDS.sleep(due);
+                        long start = System.nanoTime();
+                        long deadline = budgetNanos == Long.MAX_VALUE ? Long.MAX_VALUE : start + budgetNanos;
+                        CompletableFuture<Species> a = load(loader, rng.nextInt(151) + 1);
+                        CompletableFuture<Species> b = load(loader, rng.nextInt(151) + 1);
+                        for (CompletableFuture<Species> pending : List.of(a, b)) {
+                            if (arrive(pending, deadline) == null) missing.incrementAndGet();
+                        }
+                        startTimes.record(System.nanoTime() - start);
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        double seconds = (System.nanoTime() - began) / 1e9;
+        loader.shutdownNow();
+        stub.close();
+
+        System.out.printf("%d battle starts in %.1f s; %d species %s%n",
+            startTimes.count(), seconds, missing.get(), plain ? "failed to load" : "replaced by a stand-in");
+        System.out.printf("Stub: %d requests, %d with an injected fault%n", stub.requests(), stub.faultsInjected());
+        System.out.printf("%-10s %8s %10s %10s %10s %10s%n", "Latency", "Count", "p50", "p99", "Max", "Mean");
+        System.out.printf("%-10s %8d %10s %10s %10s %10s%n", startTimes.name(), startTimes.count(),
+            Metrics.duration(startTimes.percentile(50)), Metrics.duration(startTimes.percentile(99)),
+            Metrics.duration(startTimes.max()), Metrics.duration((long) startTimes.mean()));
+        System.out.printf("Fetch deadline: %d timeouts, %d hedges (%d won), %d rejected by an open breaker%n",
+            ResilientDataSource.TIMEOUTS.sum(), ResilientDataSource.HEDGES.sum(),
+            ResilientDataSource.HEDGE_WINS.sum(), ResilientDataSource.REJECTED.sum());
+    }
+
+    // Fetch and parse, without Factory.fetchFromAPI's MissingNo fallback
+    private static CompletableFuture<Species> load(ExecutorService loader, int id) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                byte[] json = DataSources.get().fetch("pokemon/" + id);
+                return Factory.parseSpecies(new ByteArrayInputStream(json), Factory::moveAsync);
+            } catch (Exception e) {
+                return null;
+            }
+        }, loader);
+    }
+
+    // Like BattleGame's wait for a species: null when it failed or missed the deadline
+    private static Species arrive(CompletableFuture<Species> pending, long deadline) {
+        try {
+            if (deadline == Long.MAX_VALUE) return pending.get();
+            return pending.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
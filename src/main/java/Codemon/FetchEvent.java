@@ -0,0 +1,21 @@
+package Codemon;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("codemon.Fetch")
+@Label("Data Fetch")
+@Category("Codémon")
+@StackTrace(false)
+final class FetchEvent extends jdk.jfr.Event {
+    @Label("Path")
+    String path;
+
+    @Label("Bytes")
+    int bytes;
+
+    @Label("Failed")
+    boolean failed;
+}
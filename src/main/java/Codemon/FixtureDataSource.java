@@ -0,0 +1,81 @@
+package Codemon;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.CompletableFuture;
+
+// Recorded responses on disk or on the classpath, laid out like the API:
+// "pokemon/25" is <root>/pokemon/25.json, and a listing such as "pokemon?limit=151"
+// is <root>/pokemon.json (the query string is ignored).
+public final class FixtureDataSource implements DataSource {
+    private static final String CLASSPATH = "classpath:";
+
+    private final Path dir;
+    private final String resourceRoot;
+
+    // A directory, or "classpath:/some/root"
+    public FixtureDataSource(String root) {
+        if (root.startsWith(CLASSPATH)) {
+            this.dir = null;
+            this.resourceRoot = root.substring(CLASSPATH.length()).replaceAll("/+$", "");
+        } else {
+            this.dir = Path.of(root);
+            this.resourceRoot = null;
+        }
+    }
+
+    @Override
+    public CompletableFuture<byte[]> fetchAsync(String path) {
+        try {
+            return CompletableFuture.completedFuture(read(path));
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    private byte[] read(String path) throws IOException {
+        String file = fileName(path);
+        if (dir == null) {
+            try (InputStream in = FixtureDataSource.class.getResourceAsStream(resourceRoot + "/" + file)) {
+                if (in == null) throw new FileNotFoundException(CLASSPATH + resourceRoot + "/" + file);
+                return in.readAllBytes();
+            }
+        }
+        try {
+            return Files.readAllBytes(dir.resolve(file));
+        } catch (NoSuchFileException e) {
+            throw new FileNotFoundException(dir.resolve(file).toString());
+        }
+    }
+
+    // Saves a response where a FixtureDataSource over dir will find it
+    static void record(Path dir, String path, byte[] body) throws IOException {
+        Path file = dir.resolve(fileName(path));
+        Files.createDirectories(file.getParent());
+        Path tmp = Files.createTempFile(file.getParent(), "fixture", ".tmp");
+        try {
+            Files.write(tmp, body);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static String fileName(String path) {
+        int query = path.indexOf('?');
+        String p = query < 0 ? path : path.substring(0, query);
+        p = p.replaceAll("^/+|/+$", "");
+        if (p.isEmpty() || p.contains("..")) p = "index";
+        return p + ".json";
+    }
+
+    @Override
+    public String toString() {
+        return dir != null ? dir.toString() : CLASSPATH + resourceRoot;
+    }
+}
@@ -0,0 +1,84 @@
+package Codemon;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+// What the loaded roster keeps on the heap, and what each battle allocates on top.
+//
+//   FootprintReport [battles 100000] [seed 42]
+//
+// Loads all 151 species the way the game does (snapshot first, then the data source),
+// reports the heap retained after a full GC and how many distinct Move objects back
+// the roster's move slots, then starts and plays battles the way BattleGame does, with
+// random moves and no listener, and reports the bytes allocated per battle.
+public final class FootprintReport {
+    public static void main(String[] args) {
+        int battles = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 42;
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+        // Class loading, the type chart and the snapshot mapping shouldn't count as roster
+        SpeciesSnapshot.get();
+        TypeEffectiveness.getMultiplier(0, 0, Type.NONE);
+        long before = retained(memory);
+        List<Species> roster = new ArrayList<>();
+        roster.add(Factory.createFromAPI(1));
+        // The first load also sets up what every later one shares: move catalog, metrics, caches
+        long first = retained(memory);
+        for (int id = 2; id <= Codex.SIZE; id++) roster.add(Factory.createFromAPI(id));
+        long after = retained(memory);
+
+        Set<Move> distinct = Collections.newSetFromMap(new IdentityHashMap<>());
+        Set<String> names = new HashSet<>();
+        int slots = 0;
+        for (Species s : roster) {
+            slots += s.getMoves().size();
+            distinct.addAll(s.getMoves());
+            for (Move m : s.getMoves()) names.add(m.getName());
+        }
+        System.out.printf("Roster: %d species, %.1f KB retained (%.1f KB with the first, %.0f bytes per species after)%n",
+            roster.size(), (after - before) / 1024.0, (first - before) / 1024.0, (after - first) / (roster.size() - 1.0));
+        System.out.printf("Moves: %d move slots backed by %d Move objects for %d distinct moves%n",
+            slots, distinct.size(), names.size());
+
+        SplittableRandom rng = new SplittableRandom(seed);
+        for (int i = 0; i < battles / 10; i++) battle(rng, i % 2 == 0);
+        long allocated = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long turns = 0;
+        for (int i = 0; i < battles; i++) turns += battle(rng, i % 2 == 0).turns();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        allocated = threads.getCurrentThreadAllocatedBytes() - allocated;
+        System.out.printf("Battles: %d (half Hard), %.1f turns each, %.0f bytes allocated per battle, %,.0f battles/sec%n",
+            battles, (double) turns / battles, (double) allocated / battles, battles / seconds);
+        Reference.reachabilityFence(roster);
+    }
+
+    // As BattleGame starts a battle, minus the screen
+    private static BattleResult battle(SplittableRandom rng, boolean hard) {
+        Species player = Factory.createFromAPI(rng.nextInt(Codex.SIZE) + 1);
+        Species opponent = Factory.createFromAPI(rng.nextInt(Codex.SIZE) + 1);
+        BattleState state = BattleState.of(player, opponent);
+        if (hard) state.boost(BattleState.SIDE_B);
+        return BattleEngine.fight(state, player, opponent, MovePolicy.random(), MovePolicy.random(), rng, BattleListener.NONE);
+    }
+
+    // Background threads (move fetches, the cache) can allocate between a GC and the reading; take the lowest
+    private static long retained(MemoryMXBean memory) {
+        long least = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            least = Math.min(least, memory.getHeapMemoryUsage().getUsed());
+        }
+        return least;
+    }
+}
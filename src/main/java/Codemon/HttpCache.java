@@ -0,0 +1,296 @@
+package Codemon;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// On-disk cache for PokéAPI GET responses, shared by every caller in the game.
+//
+// Each URL is one file, written to a temp file and atomically renamed into
+// place so concurrent processes only ever see complete entries. Entries are
+// fresh for a per-endpoint TTL and revalidated with ETag/Last-Modified after
+// that. A file's modification time doubles as its last-access time, and the
+// least recently used entries are evicted once the directory exceeds its cap.
+// An expired entry is served at once while it is revalidated in the background
+// (stale-while-revalidate), so an outdated copy never costs a round trip.
+//
+//   -Dcodemon.cache=off                  bypass the cache entirely
+//   -Dcodemon.cache.swr=off              wait for revalidation instead
+//   -Dcodemon.cache.dir=<dir>            default ~/.codemon/cache
+//   -Dcodemon.cache.maxBytes=<n>         default 64 MB
+//   -Dcodemon.cache.ttl.<endpoint>=<s>   e.g. codemon.cache.ttl.pokemon=3600
+public final class HttpCache {
+    private static final int MAGIC = 0x43444D43;
+    private static final boolean ENABLED = !"off".equals(System.getProperty("codemon.cache"));
+    private static final Path DIR = Path.of(System.getProperty("codemon.cache.dir",
+        System.getProperty("user.home") + "/.codemon/cache"));
+    private static final long MAX_BYTES = Long.getLong("codemon.cache.maxBytes", 64L << 20);
+    private static final boolean STALE_WHILE_REVALIDATE = !"off".equals(System.getProperty("codemon.cache.swr"));
+
+    // One pooled client for the whole process: keep-alive connections, HTTP/2 where the server offers it
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_2)
+        .connectTimeout(Duration.ofSeconds(10))
+        .followRedirects(HttpClient.Redirect.NORMAL)
+        .build();
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong revalidations = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+    private static final AtomicLong stale = new AtomicLong();
+    private static final AtomicLong bytesWritten = new AtomicLong();
+    // Background revalidations in flight, so a burst of stale reads sends one request per URL
+    private static final Set<String> REVALIDATING = ConcurrentHashMap.newKeySet();
+
+    private HttpCache() {}
+
+    public static String get(String url) throws IOException {
+        return new String(getBytes(url), StandardCharsets.UTF_8);
+    }
+
+    public static byte[] getBytes(String url) throws IOException {
+        try {
+            return getBytesAsync(url).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw new IOException(e.getCause());
+        }
+    }
+
+    // A fresh entry completes immediately; anything else goes out on the shared client
+    public static CompletableFuture<byte[]> getBytesAsync(String url) {
+        if (!ENABLED) return getBytesUncachedAsync(url);
+
+        Path file = DIR.resolve(key(url));
+        Entry cached = read(file);
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.fetchedAt < ttlMillis(url)) {
+            hits.incrementAndGet();
+            touch(file, now);
+            return CompletableFuture.completedFuture(cached.body);
+        }
+        if (cached != null && STALE_WHILE_REVALIDATE) {
+            stale.incrementAndGet();
+            touch(file, now);
+            if (REVALIDATING.add(url)) {
+                refresh(url, file, cached, now, true).whenComplete((body, error) -> REVALIDATING.remove(url));
+            }
+            return CompletableFuture.completedFuture(cached.body);
+        }
+        return refresh(url, file, cached, now, false);
+    }
+
+    // Straight to the server on the shared client; the cache is neither read nor written
+    public static CompletableFuture<byte[]> getBytesUncachedAsync(String url) {
+        misses.incrementAndGet();
+        return fetch(url, null).thenApply(entry -> entry.body);
+    }
+
+    private static CompletableFuture<byte[]> refresh(String url, Path file, Entry cached, long now, boolean background) {
+        return fetch(url, cached).handle((fresh, error) -> {
+            if (error != null) {
+                // An expired copy beats no copy when the API is unreachable
+                if (cached == null) throw error instanceof CompletionException c ? c : new CompletionException(error);
+                if (!background) hits.incrementAndGet();
+                return cached.body;
+            }
+            if (fresh == cached) {
+                revalidations.incrementAndGet();
+            } else {
+                misses.incrementAndGet();
+            }
+            fresh.fetchedAt = now;
+            write(file, url, fresh);
+            return fresh.body;
+        });
+    }
+
+    public static long hits() { return hits.get(); }
+    public static long revalidations() { return revalidations.get(); }
+    public static long misses() { return misses.get(); }
+    public static long stale() { return stale.get(); }
+
+    // Requests that actually went over the network: full downloads plus 304 revalidations
+    public static long outboundCalls() { return misses.get() + revalidations.get(); }
+
+    public static String stats() {
+        long total = hits.get() + stale.get() + revalidations.get() + misses.get();
+        double rate = total == 0 ? 0 : 100.0 * (hits.get() + stale.get()) / total;
+        return String.format("HTTP cache: %d hits, %d served stale, %d revalidated, %d misses (%.1f%% hit rate, %d outbound calls)",
+            hits.get(), stale.get(), revalidations.get(), misses.get(), rate, outboundCalls());
+    }
+
+    static long ttlMillis(String url) {
+        String endpoint = endpoint(url);
+        long defaultSeconds = switch (endpoint) {
+            case "pokemon", "move", "type" -> TimeUnit.DAYS.toSeconds(30);
+            case "pokemon-list" -> TimeUnit.DAYS.toSeconds(1);
+            default -> TimeUnit.HOURS.toSeconds(1);
+        };
+        return TimeUnit.SECONDS.toMillis(Long.getLong("codemon.cache.ttl." + endpoint, defaultSeconds));
+    }
+
+    // "https://pokeapi.co/api/v2/move/tackle" -> "move"; the paged listing gets its own bucket
+    private static String endpoint(String url) {
+        String path = URI.create(url).getPath();
+        int start = path.indexOf("/api/v2/");
+        String rest = start < 0 ? path : path.substring(start + 8);
+        int slash = rest.indexOf('/');
+        String name = slash < 0 ? rest : rest.substring(0, slash);
+        boolean listing = slash < 0 || slash == rest.length() - 1;
+        return name.equals("pokemon") && listing ? "pokemon-list" : name;
+    }
+
+    private static CompletableFuture<Entry> fetch(String url, Entry cached) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url)).timeout(REQUEST_TIMEOUT).GET();
+        if (cached != null) {
+            if (!cached.etag.isEmpty()) request.header("If-None-Match", cached.etag);
+            if (!cached.lastModified.isEmpty()) request.header("If-Modified-Since", cached.lastModified);
+        }
+        return CLIENT.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray()).thenApply(response -> {
+            int status = response.statusCode();
+            if (cached != null && status == 304) return cached;
+            if (status == 404) throw new CompletionException(new FileNotFoundException(url));
+            if (status >= 400) throw new CompletionException(new IOException("HTTP " + status + " from " + url));
+            Entry entry = new Entry();
+            entry.body = response.body();
+            entry.etag = response.headers().firstValue("ETag").orElse("");
+            entry.lastModified = response.headers().firstValue("Last-Modified").orElse("");
+            return entry;
+        });
+    }
+
+    private static Entry read(Path file) {
+        try {
+            byte[] raw = Files.readAllBytes(file);
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+            if (in.readInt() != MAGIC) return null;
+            Entry entry = new Entry();
+            entry.fetchedAt = in.readLong();
+            in.readUTF(); // url, kept for humans poking at the cache
+            entry.etag = in.readUTF();
+            entry.lastModified = in.readUTF();
+            entry.body = in.readNBytes(in.readInt());
+            return entry;
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            // Unreadable entries are treated as misses and overwritten
+            return null;
+        }
+    }
+
+    private static void write(Path file, String url, Entry entry) {
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(entry.body.length + 256);
+            DataOutputStream out = new DataOutputStream(buffer);
+            out.writeInt(MAGIC);
+            out.writeLong(entry.fetchedAt);
+            out.writeUTF(url);
+            out.writeUTF(entry.etag);
+            out.writeUTF(entry.lastModified);
+            out.writeInt(entry.body.length);
+            out.write(entry.body);
+
+            Files.createDirectories(DIR);
+            Path tmp = Files.createTempFile(DIR, "entry", ".tmp");
+            try {
+                Files.write(tmp, buffer.toByteArray());
+                try {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+
+            if (bytesWritten.addAndGet(buffer.size()) > MAX_BYTES / 8) {
+                bytesWritten.set(0);
+                evict();
+            }
+        } catch (IOException e) {
+            // The cache is an optimisation; a failed write just means a refetch later
+        }
+    }
+
+    private static void touch(Path file, long now) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(now));
+        } catch (IOException e) {
+            // Only affects eviction order
+        }
+    }
+
+    // Drops least recently used entries until the cache is back under 90% of its cap
+    static synchronized void evict() throws IOException {
+        record Item(Path path, long size, long lastUsed) {}
+        List<Item> items = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(DIR, "*.entry")) {
+            for (Path p : dir) {
+                try {
+                    long size = Files.size(p);
+                    items.add(new Item(p, size, Files.getLastModifiedTime(p).toMillis()));
+                    total += size;
+                } catch (NoSuchFileException e) {
+                    // Removed by another process
+                }
+            }
+        }
+        if (total <= MAX_BYTES) return;
+
+        items.sort(Comparator.comparingLong(Item::lastUsed));
+        long target = MAX_BYTES * 9 / 10;
+        for (Item item : items) {
+            if (total <= target) break;
+            Files.deleteIfExists(item.path());
+            total -= item.size();
+        }
+    }
+
+    private static String key(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16) + ".entry";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Entry {
+        long fetchedAt;
+        String etag = "";
+        String lastModified = "";
+        byte[] body;
+    }
+}
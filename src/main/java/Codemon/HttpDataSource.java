@@ -0,0 +1,36 @@
+package Codemon;
+
+import java.util.concurrent.CompletableFuture;
+
+// A PokéAPI-compatible server, through HttpCache and its pooled HTTP/2 client. An
+// uncached source (a local stub) shares the client but never reads or writes the cache.
+public final class HttpDataSource implements DataSource {
+    public static final String POKEAPI = "https://pokeapi.co/api/v2";
+
+    private final String base;
+    private final boolean cached;
+
+    public HttpDataSource(String base) {
+        this(base, true);
+    }
+
+    public HttpDataSource(String base, boolean cached) {
+        this.base = base.replaceAll("/+$", "");
+        this.cached = cached;
+    }
+
+    public String base() {
+        return base;
+    }
+
+    @Override
+    public CompletableFuture<byte[]> fetchAsync(String path) {
+        String url = base + "/" + path;
+        return cached ? HttpCache.getBytesAsync(url) : HttpCache.getBytesUncachedAsync(url);
+    }
+
+    @Override
+    public String toString() {
+        return base;
+    }
+}
@@ -0,0 +1,204 @@
+package Codemon;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Minimal pull reader for JSON straight off an InputStream. Callers walk the
+// document and name the few keys they care about; every other value is
+// skipped byte by byte without building strings or trees for it.
+final class JsonStream {
+    private final InputStream in;
+    private final byte[] buf = new byte[8192];
+    private int pos, limit;
+    private byte[] scratch = new byte[64];
+
+    JsonStream(InputStream in) {
+        this.in = in;
+    }
+
+    static byte[] key(String name) {
+        return name.getBytes(StandardCharsets.UTF_8);
+    }
+
+    void beginObject() throws IOException { expect('{'); }
+    void endObject() throws IOException { expect('}'); }
+    void beginArray() throws IOException { expect('['); }
+    void endArray() throws IOException { expect(']'); }
+
+    // True while the current object or array has another member; consumes the separating comma
+    boolean hasNext() throws IOException {
+        int c = peek();
+        if (c == ',') {
+            pos++;
+            c = peek();
+        }
+        return c != '}' && c != ']';
+    }
+
+    // Reads the next member name and its colon; returns the index of the matching key, or -1
+    int nextKey(byte[]... keys) throws IOException {
+        expect('"');
+        int len = 0;
+        while (true) {
+            int c = read();
+            if (c == '"') break;
+            if (c == '\\') c = read();
+            if (len == scratch.length) scratch = Arrays.copyOf(scratch, len * 2);
+            scratch[len++] = (byte) c;
+        }
+        expect(':');
+        for (int i = 0; i < keys.length; i++) {
+            if (Arrays.equals(scratch, 0, len, keys[i], 0, keys[i].length)) return i;
+        }
+        return -1;
+    }
+
+    String nextString() throws IOException {
+        if (peek() == 'n') {
+            skipValue();
+            return null;
+        }
+        expect('"');
+        int len = 0;
+        // A \\u high surrogate waiting for the \\u low surrogate that completes its code point
+        char high = 0;
+        while (true) {
+            int c = read();
+            if (c == '\\' && peekRaw() == 'u') {
+                pos++;
+                char ch = (char) Integer.parseInt(new String(new byte[] {
+                    (byte) read(), (byte) read(), (byte) read(), (byte) read() }, StandardCharsets.US_ASCII), 16);
+                if (high != 0 && Character.isLowSurrogate(ch)) {
+                    len = putChars(len, new String(new char[] { high, ch }));
+                    high = 0;
+                } else {
+                    len = putChars(len, high);
+                    high = Character.isHighSurrogate(ch) ? ch : 0;
+                    if (high == 0) len = putChars(len, String.valueOf(ch));
+                }
+                continue;
+            }
+            len = putChars(len, high);
+            high = 0;
+            if (c == '"') break;
+            if (c == '\\') {
+                c = read();
+                switch (c) {
+                    case 'n' -> c = '\n';
+                    case 't' -> c = '\t';
+                    case 'r' -> c = '\r';
+                    case 'b' -> c = '\b';
+                    case 'f' -> c = '\f';
+                    default -> { }
+                }
+            }
+            len = put(len, (byte) c);
+        }
+        return new String(scratch, 0, len, StandardCharsets.UTF_8);
+    }
+
+    // A surrogate left unpaired; encodes as '?' like any malformed UTF-16
+    private int putChars(int len, char high) {
+        return high == 0 ? len : putChars(len, String.valueOf(high));
+    }
+
+    private int putChars(int len, String chars) {
+        for (byte b : chars.getBytes(StandardCharsets.UTF_8)) len = put(len, b);
+        return len;
+    }
+
+    // Integer value, or ifNull for a JSON null
+    int nextInt(int ifNull) throws IOException {
+        int c = peek();
+        if (c == 'n') {
+            skipValue();
+            return ifNull;
+        }
+        boolean negative = c == '-';
+        if (negative) pos++;
+        long value = 0;
+        while (true) {
+            c = peekRaw();
+            if (c < '0' || c > '9') break;
+            value = value * 10 + (c - '0');
+            pos++;
+        }
+        // Tolerate a fractional part by dropping it
+        if (c == '.' || c == 'e' || c == 'E') skipValue();
+        return (int) (negative ? -value : value);
+    }
+
+    void skipValue() throws IOException {
+        int c = peek();
+        if (c == '"') {
+            pos++;
+            skipStringBody();
+        } else if (c == '{' || c == '[') {
+            int depth = 0;
+            do {
+                c = read();
+                if (c == '"') skipStringBody();
+                else if (c == '{' || c == '[') depth++;
+                else if (c == '}' || c == ']') depth--;
+            } while (depth > 0);
+        } else {
+            // number, true, false or null
+            while (true) {
+                c = peekRaw();
+                if (c == ',' || c == '}' || c == ']' || c <= ' ') break;
+                pos++;
+            }
+        }
+    }
+
+    private void skipStringBody() throws IOException {
+        while (true) {
+            int c = read();
+            if (c == '"') return;
+            if (c == '\\') read();
+        }
+    }
+
+    private int put(int len, byte b) {
+        if (len == scratch.length) scratch = Arrays.copyOf(scratch, len * 2);
+        scratch[len] = b;
+        return len + 1;
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = peek();
+        if (c != expected) throw new IOException("Expected '" + expected + "' but found '" + (char) c + "'");
+        pos++;
+    }
+
+    // Next significant byte, skipping whitespace, without consuming it
+    private int peek() throws IOException {
+        while (true) {
+            int c = peekRaw();
+            if (c > ' ') return c;
+            pos++;
+        }
+    }
+
+    private int peekRaw() throws IOException {
+        if (pos == limit && !fill()) throw new EOFException("Unexpected end of JSON");
+        return buf[pos] & 0xFF;
+    }
+
+    private int read() throws IOException {
+        int c = peekRaw();
+        pos++;
+        return c;
+    }
+
+    private boolean fill() throws IOException {
+        int n = in.read(buf, 0, buf.length);
+        if (n <= 0) return false;
+        pos = 0;
+        limit = n;
+        return true;
+    }
+}
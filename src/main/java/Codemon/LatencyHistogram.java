@@ -0,0 +1,72 @@
+package Codemon;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Fixed-size, lock-free latency histogram in nanoseconds, bucketed the way
+// HdrHistogram does it: values below 64 get a bucket each, and every power of
+// two above that is split into 32 linear sub-buckets, so any recorded value is
+// reported within ~3% of the truth. Values from 2^43 ns (~146 minutes) up share the last bucket.
+// Recording is a few atomic adds; percentiles are computed from a racy but
+// consistent-enough scan, which is fine for a stats screen.
+public final class LatencyHistogram {
+    private static final int SUB_BITS = 5;
+    private static final int SUB = 1 << SUB_BITS;
+    private static final int MAX_EXP = 42;
+    private static final int BUCKETS = (MAX_EXP - SUB_BITS + 2) * SUB;
+
+    private final String name;
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong sum = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public void record(long nanos) {
+        long v = Math.max(0, nanos);
+        counts.incrementAndGet(bucket(v));
+        total.incrementAndGet();
+        sum.addAndGet(v);
+        long m = max.get();
+        while (v > m && !max.compareAndSet(m, v)) m = max.get();
+    }
+
+    public long count() { return total.get(); }
+    public long max() { return max.get(); }
+    public double mean() { long n = total.get(); return n == 0 ? 0 : (double) sum.get() / n; }
+
+    // Upper edge of the bucket holding the given percentile (0-100), capped at the true max
+    public long percentile(double percentile) {
+        long n = total.get();
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(highestIn(i), max.get());
+        }
+        return max.get();
+    }
+
+    static int bucket(long v) {
+        if (v < SUB) return (int) v;
+        int exp = 63 - Long.numberOfLeadingZeros(v);
+        if (exp > MAX_EXP) return BUCKETS - 1;
+        int mantissa = (int) (v >>> (exp - SUB_BITS));
+        return (exp - SUB_BITS + 1) * SUB + (mantissa - SUB);
+    }
+
+    static long highestIn(int bucket) {
+        if (bucket < 2 * SUB) return bucket;
+        int exp = bucket / SUB + SUB_BITS - 1;
+        long mantissa = bucket % SUB + SUB;
+        return ((mantissa + 1) << (exp - SUB_BITS)) - 1;
+    }
+}
@@ -0,0 +1,172 @@
+package Codemon;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Drives scripted players against a BattleServer and reports sessions/sec and
+// per-turn latency as the player sees it: from sending a move to the next prompt.
+// Each scripted player connects, picks a random Codémon, plays one battle choosing
+// its first move every turn, and exits from the main menu.
+//
+//   LoadGenerator [--sessions 2000] [--concurrency 200] [--hard] [--seed 42]
+//                 [--host localhost --port 2323]
+//
+// Without --port an in-process server is started on a free port; run with
+// -Dcodemon.data=<fixtures> or a snapshot so species loads don't hit the network.
+// Hard mode searches for -Dcodemon.ai.budgetMs per opponent move.
+public final class LoadGenerator {
+    private static final String MENU = "Select an option (1-4): ";
+    private static final String DIFFICULTY = "1 or 2?: ";
+    private static final String PICK = "(1-151): ";
+    private static final String FIGHT_MENU = "Choose: ";
+    private static final String MOVE_MENU = "Choose a move: ";
+    private static final String PAUSE = "Press Enter to continue...";
+    private static final String[] PROMPTS = {MENU, DIFFICULTY, PICK, FIGHT_MENU, MOVE_MENU, PAUSE};
+
+    public static void main(String[] args) throws Exception {
+        int sessions = 2000, concurrency = 200;
+        boolean hard = false;
+        long seed = 42;
+        String host = "localhost";
+        int port = -1;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--sessions" -> sessions = Integer.parseInt(args[++i]);
+                case "--concurrency" -> concurrency = Integer.parseInt(args[++i]);
+                case "--hard" -> hard = true;
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--host" -> host = args[++i];
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        BattleServer server = null;
+        if (port < 0) {
+            server = new BattleServer(InetAddress.getLoopbackAddress(), 0, Integer.MAX_VALUE).start();
+            port = server.port();
+        }
+
+        LatencyHistogram turns = new LatencyHistogram("Turn");
+        LatencyHistogram lengths = new LatencyHistogram("Session");
+        AtomicInteger remaining = new AtomicInteger(sessions);
+        AtomicLong failures = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(concurrency);
+        String targetHost = host;
+        int targetPort = port;
+        boolean hardMode = hard;
+        long start = System.nanoTime();
+        for (int c = 0; c < concurrency; c++) {
+            SplittableRandom rng = new SplittableRandom(seed + c);
+            Thread.ofVirtual().start(() -> {
+                try {
+                    while (remaining.getAndDecrement() > 0) {
+                        long sessionStart = System.nanoTime();
+                        try {
+                            play(targetHost, targetPort, hardMode, rng, turns);
+                            lengths.record(System.nanoTime() - sessionStart);
+                        } catch (IOException e) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        if (server != null) server.close();
+
+        System.out.printf("%d sessions (%d failed) over %d connections in %.2f s: %.1f sessions/sec, %.0f turns/sec%n",
+            lengths.count(), failures.get(), concurrency, seconds, lengths.count() / seconds, turns.count() / seconds);
+        System.out.printf("%-10s %8s %10s %10s %10s %10s%n", "Latency", "Count", "p50", "p99", "Max", "Mean");
+        for (LatencyHistogram h : new LatencyHistogram[] {turns, lengths}) {
+            System.out.printf("%-10s %8d %10s %10s %10s %10s%n", h.name(), h.count(), Metrics.duration(h.percentile(50)),
+                Metrics.duration(h.percentile(99)), Metrics.duration(h.max()), Metrics.duration((long) h.mean()));
+        }
+    }
+
+    // One scripted session, from connect to the server hanging up after Exit
+    private static void play(String host, int port, boolean hard, SplittableRandom rng, LatencyHistogram turns)
+            throws IOException {
+        try (Socket socket = new Socket(host, port)) {
+            socket.setTcpNoDelay(true);
+            Prompts prompts = new Prompts(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            OutputStream out = socket.getOutputStream();
+            boolean battled = false;
+            long moveSent = 0;
+            while (true) {
+                String prompt = prompts.next();
+                if (prompt == null) {
+                    if (!battled) throw new IOException("Server hung up mid-session");
+                    return;
+                }
+                if (moveSent != 0 && (prompt == FIGHT_MENU || prompt == PAUSE)) {
+                    turns.record(System.nanoTime() - moveSent);
+                    moveSent = 0;
+                }
+                String answer;
+                if (prompt == MENU) {
+                    answer = battled ? "4" : "1";
+                } else if (prompt == DIFFICULTY) {
+                    answer = hard ? "2" : "1";
+                } else if (prompt == PICK) {
+                    answer = String.valueOf(rng.nextInt(151) + 1);
+                } else if (prompt == FIGHT_MENU) {
+                    answer = "1";
+                } else if (prompt == MOVE_MENU) {
+                    answer = "1";
+                    moveSent = System.nanoTime();
+                } else {
+                    battled = true;
+                    answer = "";
+                }
+                out.write((answer + "\r\n").getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+        }
+    }
+
+    // Reads server output until the next known prompt
+    private static final class Prompts {
+        private final Reader in;
+        private final char[] chunk = new char[8192];
+        private final StringBuilder seen = new StringBuilder();
+
+        Prompts(Reader in) {
+            this.in = in;
+        }
+
+        // The earliest prompt in the output, or null once the server closes the connection
+        String next() throws IOException {
+            while (true) {
+                String first = null;
+                int at = Integer.MAX_VALUE;
+                for (String prompt : PROMPTS) {
+                    int i = seen.indexOf(prompt);
+                    if (i >= 0 && i < at) {
+                        at = i;
+                        first = prompt;
+                    }
+                }
+                if (first != null) {
+                    seen.delete(0, at + first.length());
+                    return first;
+                }
+                int n = in.read(chunk);
+                if (n < 0) return null;
+                seen.append(chunk, 0, n);
+            }
+        }
+    }
+}
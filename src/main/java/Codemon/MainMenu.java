@@ -1,102 +1,125 @@
 package Codemon;
 
+import java.io.IOException;
 import java.util.Scanner;
 
 public class MainMenu {
 
     // ANSI Colors
     public static class Colors {
-        public static final String RESET = "\u001B[0m";
-        public static final String RED = "\u001B[31m";
-        public static final String GREEN = "\u001B[32m";
-        public static final String YELLOW = "\u001B[33m";
-        public static final String BLUE = "\u001B[34m";
-        public static final String PURPLE = "\u001B[35m";
-        public static final String CYAN = "\u001B[36m";
+        public static final String RESET = Screen.RESET;
+        public static final String RED = Screen.RED;
+        public static final String GREEN = Screen.GREEN;
+        public static final String YELLOW = Screen.YELLOW;
+        public static final String BLUE = Screen.BLUE;
+        public static final String PURPLE = Screen.PURPLE;
+        public static final String CYAN = Screen.CYAN;
     }
 
     public static void main(String[] args) {
-        Scanner scanner = new Scanner(System.in);
+        run(Session.console());
+    }
+
+    // The whole game for one player, until they choose Exit
+    public static void run(Session session) {
+        Scanner scanner = session.scanner();
+        Screen screen = session.screen();
 
         while (true) {
-            clearScreen();
-            printTitleArt();
-            System.out.println(Colors.YELLOW + "Welcome to Codémon: Terminal Trials" + Colors.RESET);
-            System.out.println(Colors.BLUE + "------------------------------------" + Colors.RESET);
-            System.out.println(Colors.CYAN + "What would you like to do?" + Colors.RESET);
-            System.out.println();
-            System.out.println(Colors.GREEN + "  [1] Enter Battle Arena" + Colors.RESET);
-            System.out.println(Colors.GREEN + "  [2] View Codéx" + Colors.RESET);
-            System.out.println(Colors.GREEN + "  [3] Credits" + Colors.RESET);
-            System.out.println(Colors.GREEN + "  [4] Exit Game" + Colors.RESET);
-            System.out.print(Colors.YELLOW + "\nSelect an option (1-4): " + Colors.RESET);
+            // The next opponent loads while the player reads the menu
+            session.prefetcher().prepareOpponent();
+            screen.clear();
+            printTitleArt(screen);
+            screen.line(Colors.YELLOW, "Welcome to Codémon: Terminal Trials")
+                .line(Colors.BLUE, "------------------------------------")
+                .line(Colors.CYAN, "What would you like to do?")
+                .line()
+                .line(Colors.GREEN, "  [1] Enter Battle Arena")
+                .line(Colors.GREEN, "  [2] View Codéx")
+                .line(Colors.GREEN, "  [3] Credits")
+                .line(Colors.GREEN, "  [4] Exit Game");
+            screen.prompt(Colors.YELLOW, "\nSelect an option (1-4): ");
 
             if (!scanner.hasNextInt()) {
-                System.out.println(Colors.RED + "\nInvalid input. Please enter a number between 1 and 4." + Colors.RESET);
+                screen.line(Colors.RED, "\nInvalid input. Please enter a number between 1 and 4.");
                 scanner.next(); // consume invalid input
-                pause();
+                session.pause();
                 continue;
             }
 
             int choice = scanner.nextInt();
             switch (choice) {
                 case 1:
-                    BattleGame.startBattle(scanner);
+                    BattleGame.startBattle(session);
                     break;
                 case 2:
-                    PKMList.showList();
+                    PKMList.showList(session);
                     break;
                 case 3:
-                    showCredits();
+                    showCredits(session);
+                    break;
+                case 9:
+                    // Not on the menu: timings and cache stats for this process
+                    showStats(session);
                     break;
                 case 4:
-                    System.out.println(Colors.YELLOW + "\nSaving progress..." + Colors.RESET);
-                    System.out.println(Colors.YELLOW + "Closing Codémon..." + Colors.RESET);
-                    System.out.println(Colors.CYAN + "Thanks for playing Codémon!" + Colors.RESET);
-                    scanner.close();
+                    screen.line(Colors.YELLOW, "\nSaving progress...");
+                    closeSave(session);
+                    screen.line(Colors.YELLOW, "Closing Codémon...")
+                        .line(Colors.CYAN, "Thanks for playing Codémon!")
+                        .flush();
+                    session.close();
                     return;
                 default:
-                    System.out.println(Colors.RED + "\nInvalid choice. Please select a valid option." + Colors.RESET);
-                    pause();
+                    screen.line(Colors.RED, "\nInvalid choice. Please select a valid option.");
+                    session.pause();
             }
         }
     }
 
-    private static void showCredits() {
-        clearScreen();
-        System.out.println(Colors.BLUE + "=== Codémon Development Team ===" + Colors.RESET);
-        System.out.println(Colors.GREEN + "Jev Austin Apolinar" + Colors.RESET);
-        System.out.println(Colors.GREEN + "Rjay Arazula" + Colors.RESET);
-        System.out.println(Colors.GREEN + "Ken Frankie Mendoza" + Colors.RESET);
-        System.out.println(Colors.PURPLE + "\nSpecial thanks to PokéAPI and the Java community and Vibe Coding." + Colors.RESET);
-        pause();
+    private static void showStats(Session session) {
+        Screen screen = session.screen().clear()
+            .line(Colors.BLUE, "=== Session Stats ===")
+            .text(Metrics.report());
+        SaveStore save = session.save();
+        if (save != null) {
+            screen.line(Colors.BLUE, "=== Save ===")
+                .line(save.wins() + " wins in " + save.battles() + " battles with " + save.roster().size() + " species"
+                    + ", last played on " + save.preference(BattleGame.DIFFICULTY, "-"));
+        }
+        session.pause();
+    }
+
+    // Every battle is already in the save's log; closing folds the log into a fresh snapshot
+    private static void closeSave(Session session) {
+        SaveStore save = session.save();
+        if (save == null) return;
+        try {
+            save.close();
+            session.screen().line(Colors.GREEN, "Your record: " + save.wins() + " wins in " + save.battles() + " battles.");
+        } catch (IOException e) {
+            session.screen().line(Colors.RED, "Couldn't finish saving: " + e.getMessage());
+        }
+    }
+
+    private static void showCredits(Session session) {
+        session.screen().clear()
+            .line(Colors.BLUE, "=== Codémon Development Team ===")
+            .line(Colors.GREEN, "Jev Austin Apolinar")
+            .line(Colors.GREEN, "Rjay Arazula")
+            .line(Colors.GREEN, "Ken Frankie Mendoza")
+            .line(Colors.PURPLE, "\nSpecial thanks to PokéAPI and the Java community and Vibe Coding.");
+        session.pause();
     }
 
-    private static void printTitleArt() {
-    System.out.println(Colors.RED +
+    private static void printTitleArt(Screen screen) {
+    screen.line(Colors.RED,
         "   ____ ___  ____  __//_ __  __  ___  _   _ \n" +
         "  / ___/ _ \\|  _ \\| ____|  \\/  |/ _ \\| \\ | |\n" +
         " | |  | | | | | | | |_  | |  | | | | |  \\| |\n" +
         " | |  | | | | | | |  _| | |\\/| | | | |   \\ |\n" +
         " | |__| |_| | |_| | |___| |  | | |_| | |\\  |\n" +
         "  \\____\\___/|____/|_____|_|  |_|\\___/|_| \\_|\n" +
-        "           Terminal Trials Edition                 \n" +
-
-
-        Colors.RESET);
-    }
-
-    private static void clearScreen() {
-        System.out.print("\033[H\033[2J");
-        System.out.flush();
-    }
-
-    private static void pause() {
-        System.out.println(Colors.PURPLE + "\nPress Enter to continue..." + Colors.RESET);
-        try {
-            System.in.read();
-        } catch (Exception e) {
-            // Ignore
-        }
+        "           Terminal Trials Edition                 \n");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,69 @@
+package Codemon;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+// Process-wide timings and counters for the spans that make up a battle start and a turn.
+// The same spans are emitted as JFR events (codemon.Fetch, codemon.Species, codemon.Turn)
+// for use with -XX:StartFlightRecording.
+//
+//   -Dcodemon.metrics=off            skip the histograms; start() and stop() fold away
+//   -Dcodemon.metrics.onExit=true    print the report when the JVM shuts down
+public final class Metrics {
+    public static final boolean ENABLED = !"off".equals(System.getProperty("codemon.metrics"));
+
+    public static final LatencyHistogram FETCH = new LatencyHistogram("fetch");
+    public static final LatencyHistogram PARSE = new LatencyHistogram("json parse");
+    public static final LatencyHistogram SPECIES = new LatencyHistogram("species load");
+    public static final LatencyHistogram TYPE_CHART = new LatencyHistogram("type chart init");
+    public static final LatencyHistogram TURN = new LatencyHistogram("battle turn");
+    private static final List<LatencyHistogram> ALL = List.of(FETCH, PARSE, SPECIES, TYPE_CHART, TURN);
+
+    public static final LongAdder FETCH_ERRORS = new LongAdder();
+    public static final LongAdder SNAPSHOT_LOADS = new LongAdder();
+    public static final LongAdder API_LOADS = new LongAdder();
+    // Battles that started on time with a stand-in because a species was late or failed to load
+    public static final LongAdder STAND_INS = new LongAdder();
+
+    static {
+        if (ENABLED && Boolean.getBoolean("codemon.metrics.onExit")) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.print(report()), "metrics-report"));
+        }
+    }
+
+    private Metrics() {}
+
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0;
+    }
+
+    public static void stop(LatencyHistogram histogram, long start) {
+        if (ENABLED) histogram.record(System.nanoTime() - start);
+    }
+
+    public static String report() {
+        StringBuilder out = new StringBuilder(1024);
+        if (!ENABLED) out.append("(timings are off: -Dcodemon.metrics=off)\n");
+        out.append(String.format("%-16s %8s %10s %10s %10s %10s%n", "Span", "Count", "p50", "p99", "Max", "Mean"));
+        for (LatencyHistogram h : ALL) {
+            out.append(String.format("%-16s %8d %10s %10s %10s %10s%n", h.name(), h.count(),
+                duration(h.percentile(50)), duration(h.percentile(99)), duration(h.max()), duration((long) h.mean())));
+        }
+        long snapshot = SNAPSHOT_LOADS.sum(), api = API_LOADS.sum();
+        out.append(String.format("%nSpecies: %d from the snapshot, %d from the data source (%.1f%% snapshot hit rate)%n",
+            snapshot, api, snapshot + api == 0 ? 0 : 100.0 * snapshot / (snapshot + api)));
+        out.append("Fetch errors: ").append(FETCH_ERRORS.sum()).append('\n');
+        out.append(String.format("Fetch deadline: %d timeouts, %d hedges (%d won), %d rejected by an open breaker, %d stand-ins%n",
+            ResilientDataSource.TIMEOUTS.sum(), ResilientDataSource.HEDGES.sum(), ResilientDataSource.HEDGE_WINS.sum(),
+            ResilientDataSource.REJECTED.sum(), STAND_INS.sum()));
+        out.append(HttpCache.stats()).append('\n');
+        return out.toString();
+    }
+
+    static String duration(long nanos) {
+        if (nanos < 1_000) return nanos + " ns";
+        if (nanos < 1_000_000) return String.format("%.1f µs", nanos / 1e3);
+        if (nanos < 1_000_000_000) return String.format("%.2f ms", nanos / 1e6);
+        return String.format("%.2f s", nanos / 1e9);
+    }
+}
@@ -1,6 +1,11 @@
 package Codemon;
 
-public class Move {
+// Immutable, so one instance per move is shared by every species that knows it:
+// MoveCatalog holds the snapshot's, Factory caches the ones fetched by name.
+public final class Move {
+    // What a species with no damaging move fights with
+    public static final Move STRUGGLE = new Move("Struggle", "normal", 50, 100, "physical");
+
     private final String name, type, damageClass;
     private final int power, accuracy;
 
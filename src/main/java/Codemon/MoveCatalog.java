@@ -0,0 +1,189 @@
+package Codemon;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+// Every move the roster can learn, as a table indexed by move ID, plus each species'
+// learnset as an adjacency list (CSR: learnsetStart[id] .. learnsetStart[id + 1] in
+// learnset). Stored in the species snapshot, so picking a moveset is a lookup and a
+// few hundred multiplications, with no request per move.
+//
+// Layout (big-endian, inside the snapshot):
+//   short moveCount, moveCount x (name, byte type ordinal, short power, byte accuracy,
+//                                 byte damage class ordinal)
+//   int[maxId + 2] learnsetStart, short[learnsetStart[maxId + 1]] learnset
+public final class MoveCatalog {
+    private static final int MOVESET_SIZE = BattleState.MAX_MOVES;
+    private static final String[] DAMAGE_CLASSES = {"physical", "special", "status"};
+    private static final List<Move> STRUGGLE = List.of(Move.STRUGGLE);
+
+    private final Move[] moves;
+    private final byte[] types;
+    private final short[] power;
+    private final byte[] accuracy;
+    private final byte[] damageClass;
+    // power x accuracy x effectiveness against each single defending type, Type.COUNT per move
+    private final double[] expected;
+    private final int[] learnsetStart;
+    private final short[] learnset;
+    private final Map<String, Integer> ids;
+
+    private MoveCatalog(int count, int maxId, int learnsetSize) {
+        moves = new Move[count];
+        types = new byte[count];
+        power = new short[count];
+        accuracy = new byte[count];
+        damageClass = new byte[count];
+        expected = new double[count * Type.COUNT];
+        learnsetStart = new int[maxId + 2];
+        learnset = new short[learnsetSize];
+        ids = new HashMap<>(count * 2);
+    }
+
+    static MoveCatalog read(ByteBuffer data, int offset, int maxId) {
+        ByteBuffer in = data.duplicate().position(offset);
+        int count = in.getShort() & 0xFFFF;
+        String[] names = new String[count];
+        byte[] t = new byte[count], a = new byte[count], c = new byte[count];
+        short[] p = new short[count];
+        for (int i = 0; i < count; i++) {
+            byte[] name = new byte[in.getShort() & 0xFFFF];
+            in.get(name);
+            names[i] = new String(name, StandardCharsets.UTF_8);
+            t[i] = in.get();
+            p[i] = in.getShort();
+            a[i] = in.get();
+            c[i] = in.get();
+        }
+        int[] start = new int[maxId + 2];
+        for (int i = 0; i < start.length; i++) start[i] = in.getInt();
+
+        MoveCatalog catalog = new MoveCatalog(count, maxId, start[maxId + 1]);
+        System.arraycopy(t, 0, catalog.types, 0, count);
+        System.arraycopy(p, 0, catalog.power, 0, count);
+        System.arraycopy(a, 0, catalog.accuracy, 0, count);
+        System.arraycopy(c, 0, catalog.damageClass, 0, count);
+        System.arraycopy(start, 0, catalog.learnsetStart, 0, start.length);
+        in.asShortBuffer().get(catalog.learnset);
+        for (int i = 0; i < count; i++) {
+            // One Move object per catalog entry, shared by every species that knows it
+            String type = t[i] == Type.NONE ? "unknown" : Type.byOrdinal(t[i]).apiName();
+            catalog.moves[i] = new Move(names[i], type, p[i], a[i] & 0xFF, DAMAGE_CLASSES[c[i]]);
+            catalog.ids.put(names[i].toLowerCase(Locale.ROOT), i);
+            double base = p[i] * (a[i] & 0xFF) / 100.0;
+            for (int d = 0; d < Type.COUNT; d++) {
+                catalog.expected[i * Type.COUNT + d] = base * TypeEffectiveness.getMultiplier(t[i], d, Type.NONE);
+            }
+        }
+        return catalog;
+    }
+
+    // learnsets[id] lists indexes into moves; null for species outside the snapshot
+    static void write(DataOutputStream out, List<Move> moves, int[][] learnsets) throws IOException {
+        out.writeShort(moves.size());
+        for (Move m : moves) {
+            byte[] name = m.getName().getBytes(StandardCharsets.UTF_8);
+            out.writeShort(name.length);
+            out.write(name);
+            out.writeByte(Type.ordinalOf(m.getType().toLowerCase(Locale.ROOT)));
+            out.writeShort(m.getPower());
+            out.writeByte(Math.min(255, m.getAccuracy()));
+            out.writeByte(switch (m.getDamageClass().toLowerCase(Locale.ROOT)) {
+                case "special" -> BattleState.SPECIAL;
+                case "status" -> BattleState.STATUS;
+                default -> BattleState.PHYSICAL;
+            });
+        }
+        int total = 0;
+        for (int[] learnable : learnsets) {
+            out.writeInt(total);
+            if (learnable != null) total += learnable.length;
+        }
+        out.writeInt(total);
+        for (int[] learnable : learnsets) {
+            if (learnable == null) continue;
+            for (int id : learnable) out.writeShort(id);
+        }
+    }
+
+    public int size() {
+        return moves.length;
+    }
+
+    public Move move(int id) {
+        return moves[id];
+    }
+
+    // Catalog ID for a PokéAPI move name ("thunder-shock"), or -1
+    public int id(String apiName) {
+        Integer id = ids.get(apiName.toLowerCase(Locale.ROOT));
+        return id == null ? -1 : id;
+    }
+
+    public int learnsetSize(int speciesId) {
+        if (speciesId < 0 || speciesId + 1 >= learnsetStart.length) return 0;
+        return learnsetStart[speciesId + 1] - learnsetStart[speciesId];
+    }
+
+    // The moveset for a species in the snapshot; see best()
+    public List<Move> moveset(int speciesId, int type, int type2) {
+        int size = learnsetSize(speciesId);
+        int[] candidates = new int[size];
+        for (int i = 0; i < size; i++) candidates[i] = learnset[learnsetStart[speciesId] + i];
+        return best(candidates, type, type2);
+    }
+
+    // Greedy pick of up to four damaging moves. A move's expected damage against a
+    // defending type is power x accuracy x STAB x effectiveness; the set is scored by
+    // summing, over every single defending type, the best expected damage any of its
+    // moves does. Each step adds the move that raises that score most, so the strongest
+    // move comes first and later picks are worth most where the set is weakest.
+    // candidates (catalog IDs) is overwritten.
+    public List<Move> best(int[] candidates, int type, int type2) {
+        int usable = 0;
+        for (int m : candidates) {
+            if (power[m] > 0 && damageClass[m] != BattleState.STATUS) candidates[usable++] = m;
+        }
+        if (usable == 0) return STRUGGLE;
+
+        double[] covered = new double[Type.COUNT];
+        List<Move> chosen = new ArrayList<>(MOVESET_SIZE);
+        while (chosen.size() < MOVESET_SIZE) {
+            int pick = -1;
+            double bestGain = -1, bestTotal = 0;
+            for (int i = 0; i < usable; i++) {
+                int m = candidates[i];
+                if (m < 0) continue;
+                double stab = BattleState.stab(types[m], type, type2);
+                double gain = 0, total = 0;
+                for (int t = 0; t < Type.COUNT; t++) {
+                    double e = expected[m * Type.COUNT + t] * stab;
+                    gain += Math.max(0, e - covered[t]);
+                    total += e;
+                }
+                // Once coverage can't improve, the remaining slots go to the hardest hitters
+                if (gain > bestGain || (gain == bestGain && total > bestTotal)) {
+                    bestGain = gain;
+                    bestTotal = total;
+                    pick = i;
+                }
+            }
+            if (pick < 0) break;
+            int m = candidates[pick];
+            double stab = BattleState.stab(types[m], type, type2);
+            for (int t = 0; t < Type.COUNT; t++) {
+                covered[t] = Math.max(covered[t], expected[m * Type.COUNT + t] * stab);
+            }
+            chosen.add(moves[m]);
+            candidates[pick] = -1;
+        }
+        return chosen;
+    }
+}
@@ -0,0 +1,16 @@
+package Codemon;
+
+import java.util.random.RandomGenerator;
+
+// Picks which move a combatant uses this round, as an index into its move list.
+// side is the combatant's side of the state; the other side is its foe.
+public interface MovePolicy {
+    // Returned by a policy to flee the battle instead of attacking
+    int RUN = -1;
+
+    int choose(BattleState state, int side, RandomGenerator rng);
+
+    static MovePolicy random() {
+        return (state, side, rng) -> rng.nextInt(state.moveCount(side));
+    }
+}
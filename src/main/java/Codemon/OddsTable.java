@@ -0,0 +1,81 @@
+package Codemon;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Exact damage distributions and KO odds for every (attacker, move, defender) triple in
+// the roster, timed, then a check of some of them against sampled attacks.
+//
+//   OddsTable [uses 3] [samples 200000] [seed 42]
+//
+// Each triple's KO odds are against the defender's full HP, within 1 .. uses uses of the
+// move. The check plays samples attacks per triple through BattleState.attack and reports
+// the largest gap between the exact and the observed chances.
+public final class OddsTable {
+    private static final int CHECKED = 20;
+
+    public static void main(String[] args) {
+        int uses = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        int samples = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+        List<Species> roster = BattleSimulator.loadRoster();
+
+        long[] tally = table(roster, uses);
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            tally = table(roster, uses);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%,d triples (%d species, their moves, %d defenders), KO odds within 1..%d uses: %s, %,.0f triples/sec%n",
+            tally[0], roster.size(), roster.size(), uses, Metrics.duration(best), tally[0] / (best / 1e9));
+        System.out.printf("Certain one-use KO: %d triples; no chance of a KO within %d: %d triples%n", tally[1], uses, tally[2]);
+
+        check(roster, samples, new SplittableRandom(seed));
+    }
+
+    // { triples, certain one-use KOs, no KO within uses }
+    private static long[] table(List<Species> roster, int uses) {
+        long[] tally = new long[3];
+        for (Species attacker : roster) {
+            for (Move move : attacker.getMoves()) {
+                for (Species defender : roster) {
+                    double[] ko = DamageCalculator.of(attacker, defender, move).koChances(defender.getHp(), uses);
+                    tally[0]++;
+                    if (ko[0] >= 1 - 1e-12) tally[1]++;
+                    if (ko[uses - 1] == 0) tally[2]++;
+                }
+            }
+        }
+        return tally;
+    }
+
+    private static void check(List<Species> roster, int samples, SplittableRandom rng) {
+        double worstDamage = 0, worstKo = 0;
+        for (int c = 0; c < CHECKED; c++) {
+            Species attacker = roster.get(rng.nextInt(roster.size()));
+            Species defender = roster.get(rng.nextInt(roster.size()));
+            int move = rng.nextInt(attacker.getMoves().size());
+            BattleState start = BattleState.of(attacker, defender);
+            DamageCalculator.Distribution exact = DamageCalculator.of(start, BattleState.SIDE_A, move);
+            int hp = start.hp(BattleState.SIDE_B);
+
+            int[] counts = new int[exact.max() + 1];
+            int twoUseKos = 0;
+            BattleState state = new BattleState();
+            for (int s = 0; s < samples; s++) {
+                state.copyFrom(start);
+                counts[state.attack(BattleState.SIDE_A, move, rng)]++;
+                state.attack(BattleState.SIDE_A, move, rng);
+                if (state.hp(BattleState.SIDE_B) == 0) twoUseKos++;
+            }
+            for (int damage = 0; damage < counts.length; damage++) {
+                worstDamage = Math.max(worstDamage, Math.abs((double) counts[damage] / samples - exact.probability(damage)));
+            }
+            worstKo = Math.max(worstKo, Math.abs((double) twoUseKos / samples - exact.koChance(hp, 2)));
+        }
+        // One standard error of a sampled chance near 1/2
+        System.out.printf("Check against %d triples x %,d sampled attacks: largest gap %.4f in P(damage), %.4f in P(KO within 2); sampling error ~%.4f%n",
+            CHECKED, samples, worstDamage, worstKo, 0.5 / Math.sqrt(samples));
+    }
+}
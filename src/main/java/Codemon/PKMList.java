@@ -1,40 +1,110 @@
 package Codemon;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URI;
-import java.net.URL;
-import org.json.JSONArray;
-import org.json.JSONObject;
+import java.io.IOException;
+import java.util.Scanner;
 
+// The Codéx: a paged listing over Codex with name search.
+//   n / p      next / previous page
+//   /text      search names (prefix matches first, then substrings)
+//   <number>   details for that ID
+//   q          back to the menu
 public final class PKMList {
     private static class Colors {
-        static final String RESET = "\u001B[0m";
-        static final String CYAN = "\u001B[36m";
+        static final String RED = Screen.RED;
+        static final String GREEN = Screen.GREEN;
+        static final String YELLOW = Screen.YELLOW;
+        static final String CYAN = Screen.CYAN;
     }
 
-    public static void showList() {
+    private static final int PAGE_SIZE = 20;
+    public static void showList(Session session) {
+        Scanner scanner = session.scanner();
+        Screen screen = session.screen();
+        Codex codex;
         try {
-            URL url = URI.create("https://pokeapi.co/api/v2/pokemon?limit=151").toURL();
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
-            BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-            StringBuilder response = new StringBuilder();
-            String line;
-            while ((line = reader.readLine()) != null) response.append(line);
-            reader.close();
-
-            JSONObject obj = new JSONObject(response.toString());
-            JSONArray results = obj.getJSONArray("results");
-            System.out.println("\n" + Colors.CYAN + "=== First 151 Codémon ===" + Colors.RESET);
-            for (int i = 0; i < results.length(); i++) {
-                System.out.println((i + 1) + ". " + results.getJSONObject(i).getString("name"));
+            codex = Codex.get();
+        } catch (IOException e) {
+            screen.line("Error fetching Codémon list: " + e.getMessage()).flush();
+            return;
+        }
+
+        int[] ids = all();
+        String title = "=== First " + Codex.SIZE + " Codémon ===";
+        int page = 0;
+        if (scanner.hasNextLine()) scanner.nextLine(); // rest of the menu line
+
+        while (true) {
+            int pages = Math.max(1, (ids.length + PAGE_SIZE - 1) / PAGE_SIZE);
+            page = Math.max(0, Math.min(page, pages - 1));
+            screen.clear().line(Colors.CYAN, title);
+            for (int i = page * PAGE_SIZE; i < Math.min(ids.length, (page + 1) * PAGE_SIZE); i++) {
+                printEntry(screen, codex, ids[i]);
+            }
+            if (ids.length == 0) screen.line(Colors.RED, "No matches.");
+            screen.line().line(Colors.YELLOW, "Page " + (page + 1) + "/" + pages
+                + "  [n]ext [p]rev [/name] search [#] details [q]uit");
+            screen.prompt(Colors.GREEN, "> ");
+
+            if (!scanner.hasNextLine()) return;
+            String input = scanner.nextLine().trim();
+            if (input.equalsIgnoreCase("q")) return;
+            if (input.equalsIgnoreCase("n")) {
+                page++;
+            } else if (input.equalsIgnoreCase("p")) {
+                page--;
+            } else if (input.startsWith("/")) {
+                String query = input.substring(1).trim();
+                if (query.isEmpty()) {
+                    ids = all();
+                    title = "=== First " + Codex.SIZE + " Codémon ===";
+                } else {
+                    long start = System.nanoTime();
+                    ids = codex.search(query);
+                    double ms = (System.nanoTime() - start) / 1e6;
+                    title = String.format("=== \"%s\": %d match%s (%.3f ms) ===",
+                        query, ids.length, ids.length == 1 ? "" : "es", ms);
+                }
+                page = 0;
+            } else if (input.matches("\\d+")) {
+                int id = Integer.parseInt(input);
+                if (id >= 1 && id <= Codex.SIZE) showDetails(session, codex, id);
+            }
+        }
+    }
+
+    private static void printEntry(Screen screen, Codex codex, int id) {
+        screen.text(String.format("%3d. %-14s", id, codex.name(id)));
+        Species s = codex.species(id);
+        if (s != null) {
+            screen.text(String.format(" %-18s HP %3d  ATK %3d  DEF %3d", s.getTypeLabel(), s.getHp(), s.getAttack(), s.getDefense()));
+        }
+        screen.line();
+    }
+
+    private static void showDetails(Session session, Codex codex, int id) {
+        Scanner scanner = session.scanner();
+        Screen screen = session.screen();
+        screen.clear().line(Colors.CYAN, "=== #" + id + " " + codex.name(id) + " ===");
+        Species s = codex.species(id);
+        if (s == null) {
+            screen.line("No local data for this Codémon; battle it to learn more.");
+        } else {
+            screen.line("Type:    " + s.getTypeLabel())
+                .line("HP:      " + s.getHp())
+                .line("Attack:  " + s.getAttack())
+                .line("Defense: " + s.getDefense())
+                .line("Moves:");
+            for (Move m : s.getMoves()) {
+                screen.line(String.format("  %-14s %-10s power %3d  accuracy %3d", m.getName(), m.getType(), m.getPower(), m.getAccuracy()));
             }
-            System.out.print("\u001B[34m" + "\nPress Enter to continue..." + "\u001B[0m");
-            System.in.read();
-        } catch (Exception e) {
-            System.out.println("Error fetching Codémon list: " + e.getMessage());
         }
+        screen.prompt(Colors.YELLOW, "\nPress Enter to go back...");
+        if (scanner.hasNextLine()) scanner.nextLine();
+    }
+
+    private static int[] all() {
+        int[] ids = new int[Codex.SIZE];
+        for (int i = 0; i < ids.length; i++) ids[i] = i + 1;
+        return ids;
     }
 }
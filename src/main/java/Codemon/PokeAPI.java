@@ -1,38 +1,303 @@
 package Codemon;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URI;
-import java.net.URL;
-import org.json.JSONArray;
-import org.json.JSONObject;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayInputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+// Bulk exporter for species data.
+//
+//   PokeAPI [--source spec] [--from n] [--to n] [--concurrency n] [--rate perSec]
+//           [--retries n] [--out dir] [--fresh]
+//
+// Writes <out>/pokemon.csv and <out>/pokemon.col (columnar binary, see writeColumns).
+// Every finished species is appended to <out>/export.checkpoint first, so a killed
+// or partly failed run resumes where it stopped; --fresh throws the checkpoint away.
+// --source takes anything -Dcodemon.data does (see DataSources), e.g. a local
+// stub server's URL or a fixture directory; the default is DataSources.get().
 public final class PokeAPI {
-    public static void main(String[] args) {
-        System.out.println("Fetching first 151 Pokémon from PokéAPI...\n");
-        for (int i = 1; i <= 151; i++) {
+    static final int COLUMNS_MAGIC = 0x43444D58; // "CDMX"
+    static final short COLUMNS_VERSION = 1;
+
+    static final String[] STATS = Factory.STAT_NAMES;
+
+    private static final long BASE_BACKOFF_MS = 250;
+    private static final long MAX_BACKOFF_MS = 8000;
+
+    record Entry(int id, String name, String type, String secondaryType, int[] stats, List<String> moves) {}
+
+    public static void main(String[] args) throws Exception {
+        DataSource source = null;
+        int from = 1, to = 151, concurrency = 8, retries = 4;
+        double rate = 20;
+        Path out = Path.of("export");
+        boolean fresh = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--source" -> source = DataSources.of(args[++i]);
+                case "--from" -> from = Integer.parseInt(args[++i]);
+                case "--to" -> to = Integer.parseInt(args[++i]);
+                case "--concurrency" -> concurrency = Integer.parseInt(args[++i]);
+                case "--rate" -> rate = Double.parseDouble(args[++i]);
+                case "--retries" -> retries = Integer.parseInt(args[++i]);
+                case "--out" -> out = Path.of(args[++i]);
+                case "--fresh" -> fresh = true;
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+
+        if (source == null) source = DataSources.get();
+        Files.createDirectories(out);
+        Path checkpoint = out.resolve("export.checkpoint");
+        if (fresh) Files.deleteIfExists(checkpoint);
+        SortedMap<Integer, Entry> done = new ConcurrentSkipListMap<>();
+        for (Entry e : loadCheckpoint(checkpoint)) {
+            if (e.id() >= from && e.id() <= to) done.put(e.id(), e);
+        }
+        List<Integer> todo = new ArrayList<>();
+        for (int id = from; id <= to; id++) {
+            if (!done.containsKey(id)) todo.add(id);
+        }
+        System.out.printf("Exporting #%d-#%d from %s: %d already done, %d to fetch (%d at a time, %s/sec)%n",
+            from, to, source, done.size(), todo.size(), concurrency, rate > 0 ? rate : "unlimited");
+
+        AtomicInteger completed = new AtomicInteger();
+        AtomicInteger retried = new AtomicInteger();
+        Map<Integer, String> failures = new ConcurrentSkipListMap<>();
+        CountDownLatch finished = new CountDownLatch(todo.size());
+        Semaphore permits = new Semaphore(concurrency);
+        RateLimiter limiter = new RateLimiter(rate, concurrency);
+        long start = System.nanoTime();
+
+        try (BufferedWriter log = Files.newBufferedWriter(checkpoint, StandardCharsets.UTF_8,
+                 StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+             ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            final DataSource api = source;
+            final int attempts = retries;
+            for (int id : todo) {
+                workers.submit(() -> {
+                    try {
+                        permits.acquire();
+                        try {
+                            Entry e = fetch(api, id, attempts, limiter, retried);
+                            synchronized (log) {
+                                log.write(checkpointLine(e));
+                                log.flush();
+                            }
+                            done.put(id, e);
+                            completed.incrementAndGet();
+                        } finally {
+                            permits.release();
+                        }
+                    } catch (Exception e) {
+                        failures.put(id, e.toString());
+                    } finally {
+                        finished.countDown();
+                    }
+                    return null;
+                });
+            }
+            while (!finished.await(1, TimeUnit.SECONDS)) {
+                progress(completed.get(), todo.size(), retried.get(), failures.size(), start);
+            }
+            progress(completed.get(), todo.size(), retried.get(), failures.size(), start);
+        }
+
+        if (!failures.isEmpty()) {
+            failures.forEach((id, error) -> System.out.println("  #" + id + ": " + error));
+            System.out.println(failures.size() + " species failed; rerun to fetch just those ("
+                + done.size() + " are kept in " + checkpoint + ").");
+            System.exit(1);
+        }
+
+        Path csv = out.resolve("pokemon.csv");
+        Path columns = out.resolve("pokemon.col");
+        writeCsv(csv, done.values());
+        writeColumns(columns, done.values());
+        System.out.printf("Wrote %d species: %s (%d bytes), %s (%d bytes)%n",
+            done.size(), csv, Files.size(csv), columns, Files.size(columns));
+        System.out.println(HttpCache.stats());
+    }
+
+    private static void progress(int completed, int total, int retried, int failed, long start) {
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("[%4d/%d] %7.1f items/sec  %d retries  %d failed%n",
+            completed, total, completed / Math.max(seconds, 1e-9), retried, failed);
+    }
+
+    private static Entry fetch(DataSource source, int id, int retries, RateLimiter limiter, AtomicInteger retried)
+            throws IOException, InterruptedException {
+        for (int attempt = 0; ; attempt++) {
+            limiter.acquire();
             try {
-                URL url = URI.create("https://pokeapi.co/api/v2/pokemon/" + i).toURL();
-                HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-                conn.setRequestMethod("GET");
-                BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) response.append(line);
-                reader.close();
-
-                JSONObject obj = new JSONObject(response.toString());
-                String name = obj.getString("name");
-                JSONArray stats = obj.getJSONArray("stats");
-                int hp = stats.getJSONObject(0).getInt("base_stat");
-                int atk = stats.getJSONObject(1).getInt("base_stat");
-                int def = stats.getJSONObject(2).getInt("base_stat");
-
-                System.out.println(i + ". " + name + " - HP: " + hp + " ATK: " + atk + " DEF: " + def);
-            } catch (Exception e) {
-                System.out.println(i + ". Error fetching data");
+                byte[] json = source.fetch("pokemon/" + id);
+                return parse(id, new ByteArrayInputStream(json));
+            } catch (FileNotFoundException e) {
+                throw e; // 404: asking again won't help
+            } catch (IOException e) {
+                if (attempt >= retries) throw e;
+                retried.incrementAndGet();
+                // Exponential backoff with jitter so workers don't retry in lockstep
+                long cap = Math.min(MAX_BACKOFF_MS, BASE_BACKOFF_MS << attempt);
+                Thread.sleep(ThreadLocalRandom.current().nextLong(cap / 2, cap + 1));
             }
         }
     }
+
+    // Everything the export keeps from a /pokemon document: types, all six base stats and every move name
+    static Entry parse(int id, InputStream json) throws IOException {
+        Factory.Document d = Factory.parseDocument(json);
+        return new Entry(id, d.name(), d.type(), d.secondaryType(), d.stats(), d.moveNames());
+    }
+
+    // One tab-separated line per finished species: id, name, type, secondary type, six stats, moves
+    private static String checkpointLine(Entry e) {
+        StringBuilder line = new StringBuilder(128);
+        line.append(e.id()).append('\t').append(e.name()).append('\t').append(e.type()).append('\t')
+            .append(e.secondaryType() == null ? "" : e.secondaryType());
+        for (int stat : e.stats()) line.append('\t').append(stat);
+        line.append('\t').append(String.join(",", e.moves()));
+        return line.append('\n').toString();
+    }
+
+    // Complete lines only; a line torn by a kill mid-write is cut off so appends start clean
+    static List<Entry> loadCheckpoint(Path checkpoint) throws IOException {
+        List<Entry> entries = new ArrayList<>();
+        if (!Files.exists(checkpoint)) return entries;
+        byte[] raw = Files.readAllBytes(checkpoint);
+        int end = raw.length;
+        while (end > 0 && raw[end - 1] != '\n') end--;
+        if (end < raw.length) {
+            try (FileChannel ch = FileChannel.open(checkpoint, StandardOpenOption.WRITE)) {
+                ch.truncate(end);
+            }
+        }
+        for (String line : new String(raw, 0, end, StandardCharsets.UTF_8).split("\n")) {
+            String[] f = line.split("\t", -1);
+            if (f.length != 5 + STATS.length) continue;
+            int[] stats = new int[STATS.length];
+            for (int s = 0; s < stats.length; s++) stats[s] = Integer.parseInt(f[4 + s]);
+            String moves = f[4 + STATS.length];
+            entries.add(new Entry(Integer.parseInt(f[0]), f[1], f[2], f[3].isEmpty() ? null : f[3], stats,
+                moves.isEmpty() ? List.of() : List.of(moves.split(","))));
+        }
+        return entries;
+    }
+
+    static void writeCsv(Path file, Iterable<Entry> entries) throws IOException {
+        StringBuilder csv = new StringBuilder(64 * 1024);
+        csv.append("id,name,type,secondary_type");
+        for (String stat : STATS) csv.append(',').append(stat.replace('-', '_'));
+        csv.append(",moves\n");
+        for (Entry e : entries) {
+            csv.append(e.id()).append(',').append(csvField(e.name())).append(',').append(csvField(e.type())).append(',')
+                .append(e.secondaryType() == null ? "" : csvField(e.secondaryType()));
+            for (int stat : e.stats()) csv.append(',').append(stat);
+            csv.append(',').append(csvField(String.join("|", e.moves()))).append('\n');
+        }
+        replace(file, csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String csvField(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) return s;
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+
+    // Column-major layout, each column contiguous so a reader can pull one stat without the rest:
+    //   int magic, short version, int rows
+    //   int[rows] id
+    //   short[rows] per stat, in STATS order
+    //   byte[rows] type, byte[rows] secondary type (Type ordinals, Type.NONE when absent)
+    //   int[rows + 1] name offsets, then the UTF-8 name bytes
+    //   int moves, then per move: u16 length + UTF-8 name (the move dictionary)
+    //   int[rows + 1] learnset offsets, then short move indices into the dictionary
+    static void writeColumns(Path file, Collection<Entry> entries) throws IOException {
+        List<Entry> rows = new ArrayList<>(entries);
+        int n = rows.size();
+        Map<String, Integer> moveIndex = new HashMap<>();
+        List<String> dictionary = new ArrayList<>();
+        for (Entry e : rows) {
+            for (String m : e.moves()) {
+                if (moveIndex.putIfAbsent(m, dictionary.size()) == null) dictionary.add(m);
+            }
+        }
+
+        Path parent = file.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(parent, "columns", ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                out.writeInt(COLUMNS_MAGIC);
+                out.writeShort(COLUMNS_VERSION);
+                out.writeInt(n);
+                for (Entry e : rows) out.writeInt(e.id());
+                for (int s = 0; s < STATS.length; s++) {
+                    for (Entry e : rows) out.writeShort(e.stats()[s]);
+                }
+                for (Entry e : rows) out.writeByte(Type.ordinalOf(e.type()));
+                for (Entry e : rows) out.writeByte(Type.ordinalOf(e.secondaryType()));
+
+                byte[][] names = new byte[n][];
+                int offset = 0;
+                for (int i = 0; i < n; i++) {
+                    names[i] = rows.get(i).name().getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(offset);
+                    offset += names[i].length;
+                }
+                out.writeInt(offset);
+                for (byte[] name : names) out.write(name);
+
+                out.writeInt(dictionary.size());
+                for (String m : dictionary) {
+                    byte[] bytes = m.getBytes(StandardCharsets.UTF_8);
+                    out.writeShort(bytes.length);
+                    out.write(bytes);
+                }
+                offset = 0;
+                for (Entry e : rows) {
+                    out.writeInt(offset);
+                    offset += e.moves().size();
+                }
+                out.writeInt(offset);
+                for (Entry e : rows) {
+                    for (String m : e.moves()) out.writeShort(moveIndex.get(m));
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private static void replace(Path file, byte[] content) throws IOException {
+        Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), "export", ".tmp");
+        try {
+            Files.write(tmp, content);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
 }
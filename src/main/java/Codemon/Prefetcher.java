@@ -0,0 +1,76 @@
+package Codemon;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.random.RandomGenerator;
+
+// Speculative species loading for the arena, so "Battle Start!" never waits on I/O.
+//
+// The next opponent starts loading as soon as a menu is on screen. The player's
+// recent picks are loaded speculatively when the arena opens; when the real pick
+// comes in, a matching load is reused and the rest are cancelled.
+//
+// Input is line-buffered, so the ID can't be seen while it's being typed; recent
+// picks are the best guess available before Enter. Each Session has its own, used
+// from that session's thread only.
+public final class Prefetcher {
+    private static final int RECENT_PICKS = 3;
+
+    private final RandomGenerator random;
+    private CompletableFuture<Species> opponent;
+    private int opponentId;
+    private int takenOpponentId;
+    private final Deque<Integer> recentPicks = new ArrayDeque<>();
+    private final Map<Integer, CompletableFuture<Species>> speculative = new LinkedHashMap<>();
+
+    // Opponents are drawn from random, so a seeded session meets the same ones
+    public Prefetcher(RandomGenerator random) {
+        this.random = random;
+    }
+
+    // Starts loading a random opponent unless one is already on the way
+    public void prepareOpponent() {
+        if (opponent == null) {
+            opponentId = random.nextInt(151) + 1;
+            opponent = Factory.createAsync(opponentId);
+        }
+    }
+
+    // Hands over the prepared opponent; the next prepareOpponent() picks a new one
+    public CompletableFuture<Species> takeOpponent() {
+        prepareOpponent();
+        CompletableFuture<Species> next = opponent;
+        takenOpponentId = opponentId;
+        opponent = null;
+        return next;
+    }
+
+    // ID of the opponent handed over by the last takeOpponent()
+    public int takenOpponentId() {
+        return takenOpponentId;
+    }
+
+    // Loads the player's recent picks ahead of the ID prompt
+    public void speculatePlayers() {
+        for (int id : recentPicks) {
+            speculative.computeIfAbsent(id, Factory::createAsync);
+        }
+    }
+
+    // The species for the ID the player actually chose; speculative loads for other IDs are dropped
+    public CompletableFuture<Species> player(int id) {
+        CompletableFuture<Species> chosen = speculative.remove(id);
+        for (Iterator<CompletableFuture<Species>> it = speculative.values().iterator(); it.hasNext(); ) {
+            it.next().cancel(true);
+            it.remove();
+        }
+        recentPicks.remove(id);
+        recentPicks.addFirst(id);
+        if (recentPicks.size() > RECENT_PICKS) recentPicks.removeLast();
+        return chosen != null ? chosen : Factory.createAsync(id);
+    }
+}
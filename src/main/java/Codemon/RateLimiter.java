@@ -0,0 +1,29 @@
+package Codemon;
+
+import java.time.Duration;
+
+// Token bucket: permits accrue at a steady rate up to a burst, and callers
+// sleep until theirs is due. A rate of zero or less never waits.
+final class RateLimiter {
+    private final long intervalNanos;
+    private final long burstNanos;
+    private long next = System.nanoTime();
+
+    RateLimiter(double perSecond, int burst) {
+        this.intervalNanos = perSecond <= 0 ? 0 : (long) (1e9 / perSecond);
+        this.burstNanos = intervalNanos * Math.max(0, burst - 1);
+    }
+
+    void acquire() throws InterruptedException {
+        if (intervalNanos == 0) return;
+        long wait;
+        synchronized (this) {
+            long now = System.nanoTime();
+            // Idle time banks at most a burst's worth of permits
+            if (next < now - burstNanos) next = now - burstNanos;
+            wait = next - now;
+            next += intervalNanos;
+        }
+        if (wait > 0) Thread.sleep(Duration.ofNanos(wait));
+    }
+}
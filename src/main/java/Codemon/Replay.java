@@ -0,0 +1,191 @@
+package Codemon;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+// Plays back a battle recorded by ReplayLog through the normal battle renderer, naming
+// the combatants and moves as recorded, so nothing is fetched.
+// --turn jumps straight to a turn: the nearest checkpoint at or before it is found
+// through the index, and only the few turns in between are applied silently.
+//
+//   Replay [file] [--turn N] [--speed turnsPerSecond] [--list]
+//
+// With no file, the most recent battle in the replay directory. --speed 0 plays
+// without pausing; the default is 2 turns per second.
+public final class Replay {
+    private static final String[] WINNERS = {"Draw", "Fled", "Player", "Opponent"};
+
+    private final ByteBuffer data;
+    private final long seed;
+    private final long startedAt;
+    private final int difficulty;
+    // [side] name, and move names by slot, of what actually fought
+    private final String[] names = new String[2];
+    private final String[][] moves = new String[2][];
+    private final BattleState initial = new BattleState();
+    private final int eventsStart;
+
+    private Replay(ByteBuffer data) {
+        this.data = data;
+        if (data.getInt() != ReplayLog.MAGIC || data.get() != ReplayLog.VERSION) {
+            throw new IllegalArgumentException("Not a battle replay (version " + ReplayLog.VERSION + ")");
+        }
+        seed = data.getLong();
+        startedAt = data.getLong();
+        // The IDs asked for; the names below are what fought
+        ReplayLog.getVarint(data);
+        ReplayLog.getVarint(data);
+        difficulty = data.get();
+        for (int side = 0; side < 2; side++) {
+            names[side] = ReplayLog.getString(data);
+            moves[side] = new String[(int) ReplayLog.getVarint(data)];
+            for (int m = 0; m < moves[side].length; m++) moves[side][m] = ReplayLog.getString(data);
+        }
+        int words = (int) ReplayLog.getVarint(data);
+        if (words != initial.data.length) throw new IllegalArgumentException("Replay from an incompatible build");
+        for (int i = 0; i < words; i++) initial.data[i] = (int) ReplayLog.getVarint(data);
+        eventsStart = data.position();
+    }
+
+    public static Replay open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file)) {
+            return new Replay(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path file = null;
+        int turn = 1;
+        double speed = 2;
+        boolean list = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--turn" -> turn = Integer.parseInt(args[++i]);
+                case "--speed" -> speed = Double.parseDouble(args[++i]);
+                case "--list" -> list = true;
+                default -> file = Path.of(args[i]);
+            }
+        }
+
+        if (list) {
+            for (Path p : recorded()) System.out.println(p);
+            return;
+        }
+        if (file == null) {
+            List<Path> all = recorded();
+            if (all.isEmpty()) {
+                System.out.println("No battles recorded in " + ReplayLog.DIR.toAbsolutePath());
+                return;
+            }
+            file = all.get(all.size() - 1);
+        }
+        open(file).play(Screen.console(), turn, speed);
+    }
+
+    private static List<Path> recorded() throws IOException {
+        if (!Files.isDirectory(ReplayLog.DIR)) return List.of();
+        try (Stream<Path> files = Files.list(ReplayLog.DIR)) {
+            return files.filter(p -> p.getFileName().toString().endsWith(ReplayLog.SUFFIX)).sorted().toList();
+        }
+    }
+
+    // Renders from the start of the given turn to the end of the recording
+    public void play(Screen screen, int fromTurn, double turnsPerSecond) throws InterruptedException {
+        String player = names[BattleState.SIDE_A];
+        String opponent = names[BattleState.SIDE_B];
+
+        BattleState state = initial.copy();
+        int position = seek(fromTurn - 1, state);
+        screen.line(Screen.CYAN, String.format("~~ Replay: %s vs %s (%s, seed %x, %tF %<tT) ~~",
+                player, opponent, difficulty == 1 ? "Easy" : "Hard", seed, startedAt));
+        if (fromTurn > 1) screen.line(Screen.YELLOW, "Jumped to turn " + fromTurn);
+
+        ByteBuffer in = data.duplicate().position(position);
+        long delayMs = turnsPerSecond > 0 ? (long) (1000 / turnsPerSecond) : 0;
+        boolean showing = false;
+        try {
+            while (in.hasRemaining()) {
+                byte tag = in.get();
+                if (tag == ReplayLog.TURN) {
+                    int turn = (int) ReplayLog.getVarint(in);
+                    if (turn < fromTurn) continue;
+                    if (showing) endTurn(screen, state, player, opponent, delayMs);
+                    showing = true;
+                    screen.line(Screen.BLUE, "\n--- Turn " + turn + " ---");
+                } else if (tag == ReplayLog.ATTACK) {
+                    int flags = in.get();
+                    int side = flags & 1;
+                    int move = (int) ReplayLog.getVarint(in);
+                    int damage = (int) ReplayLog.getVarint(in);
+                    double typeMultiplier = ReplayLog.getVarint(in) / 4.0;
+                    int foe = (1 - side) * BattleState.SIDE_SIZE + BattleState.HP;
+                    state.data[foe] = Math.max(0, state.data[foe] - damage);
+                    if (!showing) continue;
+                    BattleGame.printAttack(screen, side == BattleState.SIDE_A ? Screen.CYAN : Screen.RED, names[side],
+                        move >= 0 && move < moves[side].length ? moves[side][move] : Move.STRUGGLE.getName(),
+                        (flags & 2) != 0, (flags & 4) != 0, typeMultiplier, damage);
+                } else if (tag == ReplayLog.CHECKPOINT) {
+                    ReplayLog.getVarint(in);
+                    ReplayLog.getVarint(in);
+                    ReplayLog.getVarint(in);
+                } else if (tag == ReplayLog.END) {
+                    int outcome = (int) ReplayLog.getVarint(in);
+                    int turns = (int) ReplayLog.getVarint(in);
+                    if (showing) endTurn(screen, state, player, opponent, 0);
+                    screen.line(Screen.GREEN, "\n*** " + WINNERS[Math.max(0, Math.min(3, outcome))]
+                        + (outcome >= 2 ? " wins" : "") + " after " + turns + " turns ***").flush();
+                    return;
+                } else {
+                    break;
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            // Cut off mid-event
+        }
+        if (showing) endTurn(screen, state, player, opponent, 0);
+        screen.line(Screen.PURPLE, "\n(Recording ends here; the battle didn't finish cleanly)").flush();
+    }
+
+    private static void endTurn(Screen screen, BattleState state, String player, String opponent, long delayMs)
+            throws InterruptedException {
+        screen.text(Screen.GREEN).text(player).text(" HP: ")
+            .text(Screen.hpBar(state.hp(BattleState.SIDE_A), state.maxHp(BattleState.SIDE_A))).text(Screen.RESET)
+            .text("   ")
+            .text(Screen.RED).text(opponent).text(" HP: ")
+            .text(Screen.hpBar(state.hp(BattleState.SIDE_B), state.maxHp(BattleState.SIDE_B))).line(Screen.RESET)
+            .flush();
+        if (delayMs > 0) Thread.sleep(delayMs);
+    }
+
+    // Loads the checkpoint nearest to afterTurn into state; returns where reading resumes
+    private int seek(int afterTurn, BattleState state) {
+        int best = eventsStart;
+        int limit = data.limit();
+        if (limit >= 8 && data.getInt(limit - 4) == ReplayLog.INDEX_MAGIC) {
+            ByteBuffer index = data.duplicate().position(data.getInt(limit - 8));
+            if (index.get() == ReplayLog.INDEX) {
+                int count = (int) ReplayLog.getVarint(index);
+                for (int i = 0; i < count; i++) {
+                    int turn = (int) ReplayLog.getVarint(index);
+                    int offset = (int) ReplayLog.getVarint(index);
+                    if (turn <= afterTurn) best = offset;
+                }
+            }
+        }
+        // Without an index (a crashed session), play from the start; the turns before are applied silently
+        if (best != eventsStart) {
+            ByteBuffer in = data.duplicate().position(best + 1);
+            ReplayLog.getVarint(in);
+            state.data[BattleState.HP] = (int) ReplayLog.getVarint(in);
+            state.data[BattleState.SIDE_SIZE + BattleState.HP] = (int) ReplayLog.getVarint(in);
+            return in.position();
+        }
+        return best;
+    }
+}
@@ -0,0 +1,216 @@
+package Codemon;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+// Records one battle to an append-only binary file, for Replay. Events are encoded
+// into a reused direct buffer and only reach the file at checkpoints and at the end,
+// so a turn costs a few buffer puts and no allocation.
+//
+// Layout (big-endian fixed fields, everything else unsigned LEB128 varints):
+//   int magic 'CDRP', byte version, long seed, long startedAt (epoch ms),
+//   varint playerId, varint opponentId, byte difficulty,
+//   per side (player first): string name, varint moveCount, string[moveCount] move names
+//   varint stateLength, varint[stateLength] initial BattleState (after any boost)
+//   events, each a tag byte:
+//     TURN        varint turn
+//     ATTACK      byte flags (side | hit << 1 | crit << 2), varint move, varint damage,
+//                 varint typeMultiplier * 4
+//     CHECKPOINT  varint turn, varint hpA, varint hpB       (state after that turn)
+//     END         varint winner + 2, varint turns, varint damageByA, varint damageByB
+//     INDEX       varint count, count x (varint turn, varint offset of the CHECKPOINT)
+//   int offset of INDEX, int magic 'CDRI'
+//
+// Strings are a varint byte length and UTF-8. The IDs are the ones asked for; the names
+// are what actually fought, stand-ins included, so playback never depends on today's data.
+// Only HP changes during a battle, so checkpoints carry nothing else. A file cut
+// short by a crash has no index; Replay then scans it from the start.
+//
+//   -Dcodemon.replay=off            don't record
+//   -Dcodemon.replay.dir=<dir>      where battles go (default: ~/.codemon/replays)
+//   -Dcodemon.replay.keep=<n>       how many battles to keep; older ones are deleted (default 500)
+//   -Dcodemon.replay.server=true    also record BattleServer sessions (only the console game does by default)
+public final class ReplayLog implements BattleListener {
+    static final int MAGIC = 0x43445250;
+    static final int INDEX_MAGIC = 0x43445249;
+    static final byte VERSION = 2;
+    static final byte TURN = 1, ATTACK = 2, CHECKPOINT = 3, END = 4, INDEX = 5;
+    static final int CHECKPOINT_EVERY = 8;
+    static final String SUFFIX = ".replay";
+
+    private static final boolean ENABLED = !"off".equals(System.getProperty("codemon.replay"));
+    static final boolean SERVER = Boolean.getBoolean("codemon.replay.server");
+    static final Path DIR = Path.of(System.getProperty("codemon.replay.dir",
+        System.getProperty("user.home") + "/.codemon/replays"));
+    private static final int KEEP = Integer.getInteger("codemon.replay.keep", 500);
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(4096);
+    private final BattleState state;
+    private long written;
+    // Battles stop at MAX_TURNS, so the index never has to grow mid-battle
+    private final int[] checkpointTurns = new int[BattleEngine.MAX_TURNS / CHECKPOINT_EVERY + 1];
+    private final long[] checkpointOffsets = new long[checkpointTurns.length];
+    private int checkpoints;
+    private boolean failed;
+
+    ReplayLog(FileChannel channel, long seed, int playerId, int opponentId, int difficulty,
+              BattleState state, Species player, Species opponent) {
+        this.channel = channel;
+        this.state = state;
+        buffer.putInt(MAGIC).put(VERSION).putLong(seed).putLong(System.currentTimeMillis());
+        putVarint(playerId);
+        putVarint(opponentId);
+        buffer.put((byte) difficulty);
+        for (Species species : List.of(player, opponent)) {
+            putString(species.getName());
+            putVarint(species.getMoves().size());
+            for (Move move : species.getMoves()) putString(move.getName());
+        }
+        putVarint(state.data.length);
+        for (int word : state.data) putVarint(word);
+    }
+
+    // A log for a battle about to start from state, or null when recording is off or the directory is unusable
+    public static ReplayLog create(long seed, int playerId, int opponentId, int difficulty,
+                                   BattleState state, Species player, Species opponent) {
+        if (!ENABLED) return null;
+        try {
+            Files.createDirectories(DIR);
+            // Names sort by start time; the seed keeps concurrent sessions apart
+            Path file = DIR.resolve("battle-" + System.currentTimeMillis() + "-" + Long.toHexString(seed) + SUFFIX);
+            FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+            prune();
+            return new ReplayLog(channel, seed, playerId, opponentId, difficulty, state, player, opponent);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    // Deletes all but the newest KEEP battles; names sort by start time
+    private static void prune() {
+        List<Path> files = new ArrayList<>();
+        try (var list = Files.list(DIR)) {
+            list.filter(f -> f.getFileName().toString().endsWith(SUFFIX)).forEach(files::add);
+        } catch (IOException e) {
+            return;
+        }
+        if (files.size() <= KEEP) return;
+        files.sort(null);
+        for (Path f : files.subList(0, files.size() - KEEP)) {
+            try {
+                Files.deleteIfExists(f);
+            } catch (IOException e) {
+                // Best effort; the next battle tries again
+            }
+        }
+    }
+
+    @Override
+    public void onTurnStart(int turn) {
+        buffer.put(TURN);
+        putVarint(turn);
+    }
+
+    @Override
+    public void onAttack(int side, Species attacker, Species defender, Move move, boolean hit, boolean crit,
+                         double typeMultiplier, int damage) {
+        buffer.put(ATTACK).put((byte) (side | (hit ? 2 : 0) | (crit ? 4 : 0)));
+        putVarint(attacker.getMoves().indexOf(move));
+        putVarint(damage);
+        putVarint((int) Math.round(typeMultiplier * 4));
+        if (buffer.remaining() < 256) drain();
+    }
+
+    @Override
+    public void onTurnEnd(int turn) {
+        if (turn % CHECKPOINT_EVERY != 0 || checkpoints == checkpointTurns.length) return;
+        checkpointTurns[checkpoints] = turn;
+        checkpointOffsets[checkpoints++] = written + buffer.position();
+        buffer.put(CHECKPOINT);
+        putVarint(turn);
+        putVarint(state.hp(BattleState.SIDE_A));
+        putVarint(state.hp(BattleState.SIDE_B));
+        // Checkpoints are also where the file catches up, so a crash loses at most a few turns
+        drain();
+    }
+
+    // Writes the outcome and the checkpoint index, and closes the file
+    public void finish(BattleResult result) {
+        buffer.put(END);
+        putVarint(result.winner() + 2);
+        putVarint(result.turns());
+        putVarint(result.damageByA());
+        putVarint(result.damageByB());
+        drain();
+
+        long indexAt = written;
+        buffer.put(INDEX);
+        putVarint(checkpoints);
+        for (int i = 0; i < checkpoints; i++) {
+            putVarint(checkpointTurns[i]);
+            putVarint(checkpointOffsets[i]);
+            if (buffer.remaining() < 32) drain();
+        }
+        buffer.putInt((int) indexAt).putInt(INDEX_MAGIC);
+        close();
+    }
+
+    // For a battle that ended without a result (the player hung up): keeps what was played,
+    // without an END or index, as a crash would
+    public void close() {
+        drain();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // Nothing left to lose
+        }
+    }
+
+    private void drain() {
+        buffer.flip();
+        try {
+            while (!failed && buffer.hasRemaining()) written += channel.write(buffer);
+        } catch (IOException e) {
+            // A replay is a diagnostic; a full disk shouldn't end the battle
+            failed = true;
+        }
+        buffer.clear();
+    }
+
+    private void putString(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        putVarint(bytes.length);
+        buffer.put(bytes);
+    }
+
+    static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[(int) getVarint(in)];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void putVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    static long getVarint(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return value;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package Codemon;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Puts a bound on how long a fetch from a remote source can take.
+//
+//   deadline   every fetch fails after -Dcodemon.fetch.timeoutMs (default 2000)
+//   hedging    if the first attempt hasn't answered by the endpoint's p95, a second
+//              one is sent and whichever answers first wins; a failed first attempt
+//              is retried at once. Hedges alongside a live attempt are capped at ~10%
+//              of requests.
+//   breaker    after 5 failures in a row, an endpoint ("pokemon", "move", ...) fails
+//              fast for -Dcodemon.fetch.breakerMs (default 5000), then lets one probe
+//              through; success closes it again.
+//
+// A 404 is an answer, not a failure: it's neither hedged nor counted by the breaker.
+//   -Dcodemon.fetch.hedge=off, -Dcodemon.fetch.breaker=off turn those parts off.
+public final class ResilientDataSource implements DataSource {
+    static final long TIMEOUT_MS = Long.getLong("codemon.fetch.timeoutMs", 2000);
+    private static final long BREAKER_MS = Long.getLong("codemon.fetch.breakerMs", 5000);
+    private static final boolean HEDGE = !"off".equals(System.getProperty("codemon.fetch.hedge"));
+    private static final boolean BREAKER = !"off".equals(System.getProperty("codemon.fetch.breaker"));
+    private static final int FAILURES_TO_OPEN = 5;
+    // Until an endpoint has this many samples its p95 means little; hedge at the default instead
+    private static final int MIN_SAMPLES = 20;
+    private static final long DEFAULT_HEDGE_MS = 250;
+    private static final long MIN_HEDGE_MS = 5;
+
+    public static final LongAdder HEDGES = new LongAdder();
+    public static final LongAdder HEDGE_WINS = new LongAdder();
+    public static final LongAdder TIMEOUTS = new LongAdder();
+    public static final LongAdder REJECTED = new LongAdder();
+
+    private final DataSource upstream;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+    private final LongAdder requests = new LongAdder();
+
+    public ResilientDataSource(DataSource upstream) {
+        this.upstream = upstream;
+    }
+
+    @Override
+    public CompletableFuture<byte[]> fetchAsync(String path) {
+        Endpoint endpoint = endpoints.computeIfAbsent(endpoint(path), Endpoint::new);
+        if (BREAKER && !endpoint.breaker.allow()) {
+            REJECTED.increment();
+            return CompletableFuture.failedFuture(new IOException("Circuit open for " + endpoint.name + "; not calling upstream"));
+        }
+        requests.increment();
+
+        Call call = new Call(path, endpoint);
+        call.attempt(false);
+        if (HEDGE) {
+            Executor later = CompletableFuture.delayedExecutor(endpoint.hedgeDelayMillis(), TimeUnit.MILLISECONDS);
+            later.execute(() -> call.hedge(false));
+        }
+        return call.result.orTimeout(TIMEOUT_MS, TimeUnit.MILLISECONDS).exceptionallyCompose(error -> {
+            // Callers see an IOException, like any other fetch failure
+            if (!(error instanceof TimeoutException)) return CompletableFuture.failedFuture(error);
+            TIMEOUTS.increment();
+            endpoint.breaker.failed();
+            return CompletableFuture.failedFuture(
+                new HttpTimeoutException("No answer for " + path + " within " + TIMEOUT_MS + " ms"));
+        });
+    }
+
+    // One fetch: the first attempt, at most one retry and one hedge, and the result whichever answers first
+    private final class Call {
+        final String path;
+        final Endpoint endpoint;
+        final CompletableFuture<byte[]> result = new CompletableFuture<>();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicBoolean retried = new AtomicBoolean();
+        final AtomicBoolean hedged = new AtomicBoolean();
+
+        Call(String path, Endpoint endpoint) {
+            this.path = path;
+            this.endpoint = endpoint;
+        }
+
+        void attempt(boolean isHedge) {
+            inFlight.incrementAndGet();
+            long start = System.nanoTime();
+            CompletableFuture<byte[]> attempt = upstream.fetchAsync(path);
+            // The loser, or everything once the deadline passes, is cancelled
+            result.whenComplete((body, error) -> attempt.cancel(true));
+            attempt.whenComplete((body, error) -> {
+                Throwable cause = error instanceof CompletionException c && c.getCause() != null ? c.getCause() : error;
+                if (cause == null) {
+                    endpoint.latency.record(System.nanoTime() - start);
+                    endpoint.breaker.succeeded();
+                    if (result.complete(body) && isHedge) HEDGE_WINS.increment();
+                } else if (cause instanceof FileNotFoundException) {
+                    endpoint.breaker.succeeded();
+                    result.completeExceptionally(cause);
+                } else {
+                    if (cause instanceof CancellationException) endpoint.breaker.abandoned();
+                    else endpoint.breaker.failed();
+                    // A hedge doubles as a retry when the first attempt fails outright
+                    if (!isHedge) hedge(true);
+                    if (inFlight.decrementAndGet() == 0) result.completeExceptionally(cause);
+                }
+            });
+        }
+
+        void hedge(boolean firstFailed) {
+            if (!HEDGE || result.isDone() || !(firstFailed ? retried : hedged).compareAndSet(false, true)) return;
+            // Keep duplicate load bounded: roughly one hedge per ten requests, plus a little slack.
+            // A retry isn't a duplicate, and a run of failures is the breaker's business.
+            if (!firstFailed && HEDGES.sum() > requests.sum() / 10 + 10) return;
+            if (BREAKER && !endpoint.breaker.allow()) return;
+            HEDGES.increment();
+            attempt(true);
+        }
+    }
+
+    // First path segment: "pokemon/25" and "pokemon?limit=151" are both "pokemon"
+    static String endpoint(String path) {
+        int end = path.length();
+        int slash = path.indexOf('/'), query = path.indexOf('?');
+        if (slash >= 0) end = slash;
+        if (query >= 0 && query < end) end = query;
+        return path.substring(0, end);
+    }
+
+    @Override
+    public String toString() {
+        return upstream.toString();
+    }
+
+    private static final class Endpoint {
+        final String name;
+        final LatencyHistogram latency;
+        final CircuitBreaker breaker = new CircuitBreaker();
+
+        Endpoint(String name) {
+            this.name = name;
+            this.latency = new LatencyHistogram(name);
+        }
+
+        long hedgeDelayMillis() {
+            if (latency.count() < MIN_SAMPLES) return DEFAULT_HEDGE_MS;
+            return Math.max(MIN_HEDGE_MS, TimeUnit.NANOSECONDS.toMillis(latency.percentile(95)));
+        }
+    }
+
+    // Closed -> open after FAILURES_TO_OPEN failures in a row; open -> half-open after
+    // BREAKER_MS, letting a single probe through; the probe's outcome decides the rest
+    private static final class CircuitBreaker {
+        private int failures;
+        private long openUntil;
+        private boolean probing;
+
+        synchronized boolean allow() {
+            if (failures < FAILURES_TO_OPEN) return true;
+            if (System.nanoTime() < openUntil || probing) return false;
+            probing = true;
+            return true;
+        }
+
+        synchronized void succeeded() {
+            failures = 0;
+            probing = false;
+        }
+
+        // A cancelled attempt says nothing about the endpoint, but mustn't hold on to the probe
+        synchronized void abandoned() {
+            probing = false;
+        }
+
+        synchronized void failed() {
+            failures++;
+            probing = false;
+            if (failures >= FAILURES_TO_OPEN) openUntil = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(BREAKER_MS);
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package Codemon;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+// Save and load latency of the SaveStore: each save as the player sees it, the compaction
+// close() does, and opening a save that is just a snapshot or a snapshot plus a log.
+//
+//   SaveBenchmark [saves 100000] [dir target/save-bench]
+//
+// Run with -Dcodemon.save.fsync=true to time saves that are forced to disk. Background
+// compactions run while saving, as in a game, so their effect shows in the tail.
+public final class SaveBenchmark {
+    private static final int WARMUP = 20_000;
+    private static final int OPENS = 20;
+    // Below the default compaction threshold, so a log this long is what a crash can leave
+    private static final int TAIL = 1_500;
+
+    public static void main(String[] args) throws IOException {
+        int saves = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Path dir = Path.of(args.length > 1 ? args[1] : "target/save-bench");
+        SplittableRandom rng = new SplittableRandom(42);
+        System.out.printf("fsync per save: %s%n", Boolean.getBoolean("codemon.save.fsync") ? "on" : "off");
+
+        clear(dir.resolve("warmup"));
+        try (SaveStore warmup = SaveStore.open(dir.resolve("warmup"))) {
+            for (int i = 0; i < WARMUP; i++) warmup.recordBattle(battle(rng));
+        }
+
+        Path main = dir.resolve("main");
+        clear(main);
+        LatencyHistogram latency = new LatencyHistogram("save");
+        SaveStore store = SaveStore.open(main);
+        long start = System.nanoTime();
+        for (int i = 0; i < saves; i++) {
+            SaveStore.Battle battle = battle(rng);
+            long t = System.nanoTime();
+            store.recordBattle(battle);
+            latency.record(System.nanoTime() - t);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%,d saves: p50 %s, p99 %s, p99.9 %s, max %s, mean %s (%,.0f saves/sec)%n", saves,
+            Metrics.duration(latency.percentile(50)), Metrics.duration(latency.percentile(99)),
+            Metrics.duration(latency.percentile(99.9)), Metrics.duration(latency.max()),
+            Metrics.duration((long) latency.mean()), saves / (elapsed / 1e9));
+
+        int species = store.roster().size(), history = store.history().size();
+        long closing = System.nanoTime();
+        store.close();
+        System.out.printf("close (compaction of %d species, %d battles of history): %s; snapshot %,d bytes%n",
+            species, history, Metrics.duration(System.nanoTime() - closing), Files.size(main.resolve(SaveStore.SNAPSHOT)));
+
+        Path snapshotOnly = dir.resolve("snapshot-only");
+        copy(main, snapshotOnly);
+        Path withLog = dir.resolve("with-log");
+        copy(main, withLog);
+        SaveStore tail = SaveStore.open(withLog);
+        for (int i = 0; i < TAIL; i++) tail.recordBattle(battle(rng));
+        // Kept as the crash would leave it: copied before close() folds the log into the snapshot
+        Path crashed = dir.resolve("crashed");
+        copy(withLog, crashed);
+        tail.close();
+
+        System.out.printf("open, snapshot only:         %s%n", Metrics.duration(timeOpen(snapshotOnly, dir)));
+        System.out.printf("open, snapshot + %,d saves: %s (log %,d bytes)%n", TAIL, Metrics.duration(timeOpen(crashed, dir)),
+            Files.size(crashed.resolve(SaveStore.LOG)));
+    }
+
+    // Median of OPENS opens of a fresh copy of source
+    private static long timeOpen(Path source, Path dir) throws IOException {
+        Path target = dir.resolve("open");
+        long[] times = new long[OPENS];
+        for (int i = 0; i < OPENS; i++) {
+            copy(source, target);
+            long t = System.nanoTime();
+            SaveStore store = SaveStore.open(target);
+            times[i] = System.nanoTime() - t;
+            store.close();
+        }
+        Arrays.sort(times);
+        return times[OPENS / 2];
+    }
+
+    private static SaveStore.Battle battle(SplittableRandom rng) {
+        return new SaveStore.Battle(System.currentTimeMillis(), 1 + rng.nextInt(Codex.SIZE), 1 + rng.nextInt(Codex.SIZE),
+            1 + rng.nextInt(2), rng.nextInt(2), 1 + rng.nextInt(40));
+    }
+
+    private static void copy(Path from, Path to) throws IOException {
+        clear(to);
+        Files.createDirectories(to);
+        for (String name : List.of(SaveStore.SNAPSHOT, SaveStore.LOG)) {
+            Path file = from.resolve(name);
+            if (Files.exists(file)) Files.copy(file, to.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void clear(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return;
+        List<Path> files = new ArrayList<>();
+        try (var list = Files.list(dir)) {
+            list.forEach(files::add);
+        }
+        for (Path f : files) Files.delete(f);
+    }
+}
@@ -0,0 +1,192 @@
+package Codemon;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Kills a process that is saving as fast as it can at random moments, then checks that
+// the save opens and holds exactly what it should.
+//
+//   SaveCrashHarness [--rounds 50] [--dir target/save-crash] [--seed 42] [--torn 0.25]
+//
+// Each round starts a child JVM that appends battle i, i + 1, ... to the save (every
+// tenth also sets a preference) and prints each i once recordBattle has returned. The
+// child compacts every 2 KB of log, so kills also land mid-compaction. After the kill,
+// a --torn share of rounds also damages the end of the log, as a write torn by a power
+// cut would: a few bytes cut off or garbage appended. The harness then opens the save
+// and checks that
+//   - the history is an unbroken run ending at the last battle saved, each as written,
+//   - the roster tallies and the preference agree with that run,
+//   - every save the child reported survived (with a damaged tail, all but the last).
+// Exits with status 1 on the first round that fails.
+public final class SaveCrashHarness {
+    private static final String CHILD = "--child";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals(CHILD)) {
+            child(Path.of(args[1]), Long.parseLong(args[2]));
+            return;
+        }
+        int rounds = 50;
+        Path dir = Path.of("target/save-crash");
+        long seed = 42;
+        double tornRate = 0.25;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rounds" -> rounds = Integer.parseInt(args[++i]);
+                case "--dir" -> dir = Path.of(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--torn" -> tornRate = Double.parseDouble(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+        clear(dir);
+        SplittableRandom rng = new SplittableRandom(seed);
+        long saved = 0, midCompaction = 0, torn = 0;
+        for (int round = 1; round <= rounds; round++) {
+            long acked = runAndKill(dir, saved, 5 + rng.nextInt(150));
+            if (Files.exists(dir.resolve(SaveStore.SNAPSHOT + SaveStore.TEMP))
+                    || Files.exists(dir.resolve(SaveStore.LOG + SaveStore.TEMP))) {
+                midCompaction++;
+            }
+            boolean damaged = rng.nextDouble() < tornRate;
+            if (damaged) {
+                tear(dir.resolve(SaveStore.LOG), rng);
+                torn++;
+            }
+
+            String problem;
+            long count;
+            try (SaveStore store = SaveStore.open(dir)) {
+                count = store.battles();
+                problem = verify(store, count);
+            }
+            // acked is the last index the child reported, so acked + 1 saves had returned
+            long mustHave = damaged ? acked : acked + 1;
+            if (problem == null && count < mustHave) {
+                problem = "only " + count + " battles, but the child had saved " + (acked + 1);
+            }
+            if (problem == null && count < saved) problem = "went back from " + saved + " to " + count + " battles";
+            if (problem != null) {
+                System.out.printf("Round %d FAILED: %s%n", round, problem);
+                System.exit(1);
+            }
+            System.out.printf("Round %3d: killed after %6d saves, %s%s, %d battles on open%n", round, acked + 1 - saved,
+                damaged ? "log tail damaged" : "log intact", damaged && count == acked ? " (lost the torn save)" : "", count);
+            saved = count;
+        }
+        System.out.printf("%d rounds, %d battles saved: every open succeeded and every reported save survived"
+            + " (%d kills mid-compaction, %d damaged log tails repaired)%n", rounds, saved, midCompaction, torn);
+    }
+
+    // Starts a child saving from index first, kills it after delayMs, and returns the last index it reported
+    static long runAndKill(Path dir, long first, long delayMs) throws IOException, InterruptedException {
+        Path java = Path.of(System.getProperty("java.home"), "bin", "java");
+        Process child = new ProcessBuilder(java.toString(), "-cp", System.getProperty("java.class.path"),
+            "-Dcodemon.save.compactBytes=2048", SaveCrashHarness.class.getName(), CHILD, dir.toString(), Long.toString(first))
+            .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        AtomicLong acked = new AtomicLong(first - 1);
+        Thread reader = Thread.ofPlatform().start(() -> {
+            try (BufferedReader in = new BufferedReader(new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8))) {
+                for (String line; (line = in.readLine()) != null; ) {
+                    acked.set(Long.parseLong(line));
+                }
+            } catch (IOException e) {
+                // Killed
+            }
+        });
+        // Counted from the child's first save, not its JVM start
+        while (acked.get() < first && child.isAlive()) Thread.sleep(1);
+        Thread.sleep(delayMs);
+        child.destroyForcibly();
+        child.waitFor(10, TimeUnit.SECONDS);
+        reader.join();
+        return acked.get();
+    }
+
+    private static void child(Path dir, long first) throws IOException {
+        SaveStore store = SaveStore.open(dir);
+        for (long i = first; ; i++) {
+            save(store, i);
+            System.out.println(i);
+        }
+    }
+
+    // Save i of the run: battle i, and every tenth also a preference
+    static void save(SaveStore store, long i) throws IOException {
+        store.recordBattle(battle(i));
+        if (i % 10 == 0) store.setPreference("last", Long.toString(i));
+    }
+
+    // Battle i of the run, as the child writes it
+    private static SaveStore.Battle battle(long i) {
+        int n = (int) i;
+        return new SaveStore.Battle(i, 1 + n % Codex.SIZE, 1 + (n * 7) % Codex.SIZE, 1 + n % 2,
+            n % 3 == 0 ? BattleResult.SIDE_A : BattleResult.SIDE_B, 1 + n % 50);
+    }
+
+    // Null when the store holds exactly battles 0 .. count - 1
+    static String verify(SaveStore store, long count) {
+        List<SaveStore.Battle> history = store.history();
+        long from = count - history.size();
+        if (history.size() != Math.min(count, SaveStore.HISTORY)) {
+            return history.size() + " battles in the history for " + count + " saved";
+        }
+        for (int k = 0; k < history.size(); k++) {
+            if (!history.get(k).equals(battle(from + k))) return "battle " + (from + k) + " reads back as " + history.get(k);
+        }
+        Map<Integer, SaveStore.Tally> expected = new TreeMap<>();
+        for (long i = 0; i < count; i++) {
+            SaveStore.Battle b = battle(i);
+            SaveStore.Tally t = expected.getOrDefault(b.playerId(), new SaveStore.Tally(0, 0));
+            expected.put(b.playerId(), new SaveStore.Tally(t.battles() + 1, t.wins() + (b.winner() == BattleResult.SIDE_A ? 1 : 0)));
+        }
+        if (!expected.equals(store.roster())) return "roster tallies don't match the " + count + " battles saved";
+        // The preference is its own save after the battle's, so a kill between the two leaves the one before
+        String last = lastPreference(count - 1), stored = store.preference("last", "-");
+        boolean between = (count - 1) % 10 == 0 && stored.equals(lastPreference(count - 2));
+        if (!last.equals(stored) && !between) return "preference is " + stored + ", expected " + last;
+        return null;
+    }
+
+    // The preference as battle i's save left it
+    private static String lastPreference(long i) {
+        return i < 0 ? "-" : Long.toString(i / 10 * 10);
+    }
+
+    // What a torn write leaves: the last few bytes missing, or garbage where a frame should be
+    static void tear(Path log, SplittableRandom rng) throws IOException {
+        try (FileChannel ch = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            long size = ch.size();
+            if (rng.nextBoolean() && size > 0) {
+                ch.truncate(Math.max(0, size - 1 - rng.nextInt(20)));
+            } else {
+                byte[] garbage = new byte[1 + rng.nextInt(40)];
+                for (int i = 0; i < garbage.length; i++) garbage[i] = (byte) rng.nextInt(256);
+                ch.write(ByteBuffer.wrap(garbage), size);
+            }
+        }
+    }
+
+    private static void clear(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return;
+        List<Path> files = new ArrayList<>();
+        try (var list = Files.list(dir)) {
+            list.forEach(files::add);
+        }
+        for (Path f : files) Files.delete(f);
+    }
+}
@@ -0,0 +1,419 @@
+package Codemon;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32C;
+
+// The player's progress: every species they've battled with and its record, the most
+// recent battles, and preferences. A save is one small frame appended to a log; the
+// whole state is rewritten as a snapshot only now and then, so a save costs one
+// write() and startup reads one snapshot plus the log written since.
+//
+//   save.snap   int magic 'CDSV', byte version, long seq, int length, int crc32c, body:
+//                 int n, n x (short speciesId, int battles, int wins)
+//                 int n, n x battle (long at, short player, short opponent,
+//                                    byte difficulty, byte winner + 2, short turns)
+//                 int n, n x (string key, string value)
+//   save.wal    frames: int length, int crc32c of the body, body:
+//                 long seq, byte kind, BATTLE battle | PREFERENCE string key, string value
+//   strings are a short byte length and UTF-8
+//   save.lock   held exclusively while a store is open, so two games never share the log
+//
+// Crash safety. A frame is applied only if its length and checksum hold, and the log
+// is cut back to the last good frame on open, so a write torn by a crash loses that
+// one save and nothing before it. Snapshots are written to a temporary file, forced
+// and renamed over the old one; frames whose seq the snapshot already covers are
+// skipped, so a crash at any point of a compaction leaves a readable pair. A process
+// crash loses nothing that save methods had returned from: the data is in the OS.
+// To survive power loss as well, -Dcodemon.save.fsync=true forces every frame to disk.
+//
+//   -Dcodemon.save=off                don't save
+//   -Dcodemon.save.dir=<dir>          where the files go (default: ~/.codemon/save)
+//   -Dcodemon.save.compactBytes=<n>   log size that triggers a compaction (default 65536)
+public final class SaveStore implements Closeable {
+    static final int SNAPSHOT_MAGIC = 0x43445356;
+    static final byte VERSION = 1;
+    static final byte BATTLE = 1, PREFERENCE = 2;
+    static final String SNAPSHOT = "save.snap", LOG = "save.wal", LOCK = "save.lock", TEMP = ".tmp";
+    static final int HISTORY = 1000;
+    private static final int SNAPSHOT_HEADER = 4 + 1 + 8 + 4 + 4;
+    private static final int FRAME_HEADER = 8;
+    private static final int MAX_STRING = 255;
+    private static final int MAX_FRAME = 8 + 1 + 2 * (2 + MAX_STRING);
+
+    private static final boolean ENABLED = !"off".equals(System.getProperty("codemon.save"));
+    static final Path DIR = Path.of(System.getProperty("codemon.save.dir",
+        System.getProperty("user.home") + "/.codemon/save"));
+    private static final boolean FSYNC = Boolean.getBoolean("codemon.save.fsync");
+    private static final long COMPACT_BYTES = Long.getLong("codemon.save.compactBytes", 64 * 1024);
+
+    public record Battle(long at, int playerId, int opponentId, int difficulty, int winner, int turns) {}
+    public record Tally(int battles, int wins) {}
+
+    private final Path dir;
+    private final Map<Integer, int[]> roster = new TreeMap<>();
+    private final Deque<Battle> history = new ArrayDeque<>();
+    private final Map<String, String> preferences = new TreeMap<>();
+    private final ByteBuffer frame = ByteBuffer.allocateDirect(FRAME_HEADER + MAX_FRAME);
+    private final CRC32C crc = new CRC32C();
+    private final ReentrantLock compaction = new ReentrantLock();
+    private FileChannel lock;
+    private FileChannel log;
+    private long logSize;
+    private long seq;
+    private boolean closed;
+
+    private SaveStore(Path dir) {
+        this.dir = dir;
+    }
+
+    // The console player's save, or null when saving is off or the save can't be used
+    public static SaveStore forConsole() {
+        if (!ENABLED) return null;
+        try {
+            return open(DIR);
+        } catch (IOException e) {
+            System.out.println("Save unavailable (" + e.getMessage() + "); progress won't be kept this time.");
+            return null;
+        }
+    }
+
+    // Rebuilds the state from dir's snapshot and log, repairing a torn log tail
+    public static SaveStore open(Path dir) throws IOException {
+        Files.createDirectories(dir);
+        SaveStore store = new SaveStore(dir);
+        store.lock();
+        try {
+            // Leftovers of a compaction that didn't finish; the files they were meant to replace are intact
+            Files.deleteIfExists(dir.resolve(SNAPSHOT + TEMP));
+            Files.deleteIfExists(dir.resolve(LOG + TEMP));
+            store.readSnapshot();
+            store.log = FileChannel.open(dir.resolve(LOG), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+            store.replayLog();
+        } catch (IOException | RuntimeException e) {
+            if (store.log != null) store.log.close();
+            store.lock.close();
+            throw e;
+        }
+        return store;
+    }
+
+    // Another game appending to the same log, or compacting it under this one, would lose saves
+    private void lock() throws IOException {
+        lock = FileChannel.open(dir.resolve(LOCK), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock held;
+        try {
+            held = lock.tryLock();
+        } catch (OverlappingFileLockException e) {
+            // Already open in this JVM
+            held = null;
+        }
+        if (held == null) {
+            lock.close();
+            throw new IOException("save in " + dir + " is in use by another game");
+        }
+    }
+
+    public synchronized void recordBattle(Battle battle) throws IOException {
+        ByteBuffer body = begin(BATTLE);
+        putBattle(body, battle);
+        append();
+        applyBattle(battle);
+    }
+
+    public synchronized void setPreference(String key, String value) throws IOException {
+        if (value.equals(preferences.get(key))) return;
+        ByteBuffer body = begin(PREFERENCE);
+        putString(body, key);
+        putString(body, value);
+        append();
+        preferences.put(key, value);
+    }
+
+    public synchronized String preference(String key, String fallback) {
+        return preferences.getOrDefault(key, fallback);
+    }
+
+    public synchronized Map<Integer, Tally> roster() {
+        Map<Integer, Tally> copy = new TreeMap<>();
+        roster.forEach((id, t) -> copy.put(id, new Tally(t[0], t[1])));
+        return copy;
+    }
+
+    // Most recent last
+    public synchronized List<Battle> history() {
+        return new ArrayList<>(history);
+    }
+
+    public synchronized int battles() {
+        int total = 0;
+        for (int[] t : roster.values()) total += t[0];
+        return total;
+    }
+
+    public synchronized int wins() {
+        int total = 0;
+        for (int[] t : roster.values()) total += t[1];
+        return total;
+    }
+
+    synchronized long logSize() {
+        return logSize;
+    }
+
+    // Writes a snapshot and starts the log over; also what close() does
+    public void compact() throws IOException {
+        compaction.lock();
+        try {
+            compactNow();
+        } finally {
+            compaction.unlock();
+        }
+    }
+
+    // Saves go on while the snapshot is written; only the start and the log swap hold the store's lock
+    private void compactNow() throws IOException {
+        byte[] image;
+        long covered, from;
+        synchronized (this) {
+            if (closed) return;
+            image = encodeState();
+            covered = seq;
+            from = logSize;
+        }
+        writeSnapshot(image, covered);
+        synchronized (this) {
+            if (closed) return;
+            // Frames saved while the snapshot was being written move to the new log
+            ByteBuffer tail = ByteBuffer.allocate((int) (logSize - from));
+            while (tail.hasRemaining()) log.read(tail, from + tail.position());
+            tail.flip();
+            Path temp = dir.resolve(LOG + TEMP);
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE)) {
+                while (tail.hasRemaining()) out.write(tail);
+                out.force(true);
+            }
+            log.close();
+            try {
+                Files.move(temp, dir.resolve(LOG), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                syncDirectory();
+            } finally {
+                // The new log, or the old one if the rename failed; either holds every frame the snapshot doesn't
+                log = FileChannel.open(dir.resolve(LOG), StandardOpenOption.READ, StandardOpenOption.WRITE);
+                logSize = log.size();
+                log.position(logSize);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        compaction.lock();
+        try {
+            // A failed compaction loses nothing, the log holds every save; the files are let go either way
+            try {
+                compactNow();
+            } finally {
+                closeFiles();
+            }
+        } finally {
+            compaction.unlock();
+        }
+    }
+
+    private synchronized void closeFiles() throws IOException {
+        if (closed) return;
+        closed = true;
+        try {
+            log.force(true);
+            log.close();
+        } finally {
+            // Closing the lock's channel releases it for the next game
+            lock.close();
+        }
+    }
+
+    private ByteBuffer begin(byte kind) throws IOException {
+        if (closed) throw new IOException("Save is closed");
+        frame.clear().position(FRAME_HEADER);
+        frame.putLong(seq + 1).put(kind);
+        return frame;
+    }
+
+    // Finishes the frame begun by begin() and writes it; the state changes only once it's in the log
+    private void append() throws IOException {
+        int end = frame.position();
+        int length = end - FRAME_HEADER;
+        crc.reset();
+        crc.update(frame.duplicate().position(FRAME_HEADER).limit(end));
+        frame.putInt(0, length).putInt(4, (int) crc.getValue());
+        frame.flip();
+        while (frame.hasRemaining()) log.write(frame);
+        if (FSYNC) log.force(false);
+        logSize += end;
+        seq++;
+        if (logSize >= COMPACT_BYTES && !compaction.isLocked()) {
+            Thread.ofVirtual().start(() -> {
+                // One at a time; if another is already running, this one has nothing to do
+                if (!compaction.tryLock()) return;
+                try {
+                    compactNow();
+                } catch (IOException e) {
+                    // The log keeps growing; the next compaction or close tries again
+                } finally {
+                    compaction.unlock();
+                }
+            });
+        }
+    }
+
+    private void readSnapshot() throws IOException {
+        Path file = dir.resolve(SNAPSHOT);
+        if (!Files.exists(file)) return;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer data = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (data.remaining() < SNAPSHOT_HEADER || data.getInt() != SNAPSHOT_MAGIC || data.get() != VERSION) {
+                throw new IOException(file + " is not a save snapshot");
+            }
+            long covered = data.getLong();
+            int length = data.getInt();
+            int expected = data.getInt();
+            if (length < 0 || length > data.remaining()) throw new IOException(file + " is cut short");
+            ByteBuffer body = data.slice(data.position(), length);
+            crc.reset();
+            crc.update(body.duplicate());
+            // Only ever replaced by rename, so a bad checksum means the disk, not a crash
+            if ((int) crc.getValue() != expected) throw new IOException(file + " fails its checksum");
+
+            for (int n = body.getInt(); n > 0; n--) roster.put((int) body.getShort(), new int[] { body.getInt(), body.getInt() });
+            for (int n = body.getInt(); n > 0; n--) history.addLast(getBattle(body));
+            for (int n = body.getInt(); n > 0; n--) preferences.put(getString(body), getString(body));
+            seq = covered;
+        }
+    }
+
+    // Applies every intact frame past the snapshot, then cuts off whatever follows the last one
+    private void replayLog() throws IOException {
+        long size = log.size();
+        long good = 0;
+        if (size > 0) {
+            MappedByteBuffer data = log.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            while (data.remaining() >= FRAME_HEADER) {
+                int at = data.position();
+                int length = data.getInt();
+                int expected = data.getInt();
+                if (length < 9 || length > MAX_FRAME || length > data.remaining()) break;
+                ByteBuffer body = data.slice(data.position(), length);
+                crc.reset();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() != expected) break;
+                long frameSeq = body.getLong();
+                byte kind = body.get();
+                data.position(at + FRAME_HEADER + length);
+                good = data.position();
+                // Already in the snapshot: written before a compaction that finished
+                if (frameSeq <= seq) continue;
+                if (kind == BATTLE) applyBattle(getBattle(body));
+                else if (kind == PREFERENCE) preferences.put(getString(body), getString(body));
+                seq = frameSeq;
+            }
+        }
+        if (good < size) {
+            log.truncate(good);
+            log.force(true);
+        }
+        logSize = good;
+        log.position(good);
+    }
+
+    private void applyBattle(Battle battle) {
+        int[] tally = roster.computeIfAbsent(battle.playerId(), id -> new int[2]);
+        tally[0]++;
+        if (battle.winner() == BattleResult.SIDE_A) tally[1]++;
+        history.addLast(battle);
+        if (history.size() > HISTORY) history.removeFirst();
+    }
+
+    private byte[] encodeState() {
+        int size = 12 + roster.size() * 10 + history.size() * 16;
+        for (Map.Entry<String, String> e : preferences.entrySet()) size += 4 + utf8(e.getKey()).length + utf8(e.getValue()).length;
+        ByteBuffer body = ByteBuffer.allocate(size);
+        body.putInt(roster.size());
+        roster.forEach((id, t) -> body.putShort((short) (int) id).putInt(t[0]).putInt(t[1]));
+        body.putInt(history.size());
+        for (Battle b : history) putBattle(body, b);
+        body.putInt(preferences.size());
+        preferences.forEach((k, v) -> {
+            putString(body, k);
+            putString(body, v);
+        });
+        return body.array();
+    }
+
+    private void writeSnapshot(byte[] body, long covered) throws IOException {
+        CRC32C sum = new CRC32C();
+        sum.update(body);
+        Path temp = dir.resolve(SNAPSHOT + TEMP);
+        try (FileChannel ch = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer out = ch.map(FileChannel.MapMode.READ_WRITE, 0, SNAPSHOT_HEADER + body.length);
+            out.putInt(SNAPSHOT_MAGIC).put(VERSION).putLong(covered).putInt(body.length).putInt((int) sum.getValue()).put(body);
+            out.force();
+        }
+        Files.move(temp, dir.resolve(SNAPSHOT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+    }
+
+    // So the renames themselves survive a power cut; not every platform can open a directory
+    private void syncDirectory() {
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException e) {
+            // Best effort
+        }
+    }
+
+    private static void putBattle(ByteBuffer out, Battle b) {
+        out.putLong(b.at()).putShort((short) b.playerId()).putShort((short) b.opponentId())
+            .put((byte) b.difficulty()).put((byte) (b.winner() + 2)).putShort((short) b.turns());
+    }
+
+    private static Battle getBattle(ByteBuffer in) {
+        return new Battle(in.getLong(), in.getShort(), in.getShort(), in.get(), in.get() - 2, in.getShort() & 0xFFFF);
+    }
+
+    private static void putString(ByteBuffer out, String s) {
+        byte[] bytes = utf8(s);
+        if (bytes.length > MAX_STRING) throw new IllegalArgumentException("Longer than " + MAX_STRING + " bytes: " + s);
+        out.putShort((short) bytes.length).put(bytes);
+    }
+
+    private static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort() & 0xFFFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+}
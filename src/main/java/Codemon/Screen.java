@@ -0,0 +1,202 @@
+package Codemon;
+
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.List;
+
+// Composes terminal output into one reusable buffer and writes it with a single
+// write per flush, instead of one println (and one syscall) per line.
+//
+// A frame started with clear() is a full screen. With -Dcodemon.render.diff=true,
+// full screens are redrawn by moving the cursor to just the lines that changed
+// since the previous one. Anything written outside a full frame (the battle log)
+// scrolls as usual and makes the next full frame redraw from scratch.
+public final class Screen {
+    public static final String RESET = "\u001B[0m";
+    public static final String RED = "\u001B[31m";
+    public static final String GREEN = "\u001B[32m";
+    public static final String YELLOW = "\u001B[33m";
+    public static final String BLUE = "\u001B[34m";
+    public static final String PURPLE = "\u001B[35m";
+    public static final String CYAN = "\u001B[36m";
+
+    private static final String CLEAR = "\033[H\033[2J";
+    private static final int MAX_ROWS = Integer.getInteger("codemon.render.rows", 40);
+    private static final int BAR_WIDTH = 20;
+    // Every HP bar the game can show, built once
+    private static final String[] BARS = new String[BAR_WIDTH + 1];
+
+    static {
+        for (int filled = 0; filled <= BAR_WIDTH; filled++) {
+            BARS[filled] = "[" + "█".repeat(filled) + "-".repeat(BAR_WIDTH - filled) + "]";
+        }
+    }
+
+    private static final Screen CONSOLE = new Screen(System.out, Boolean.getBoolean("codemon.render.diff"));
+
+    private final PrintStream out;
+    private final CharsetEncoder encoder;
+    private final boolean diff;
+    private final StringBuilder frame = new StringBuilder(4096);
+    private final StringBuilder patch = new StringBuilder(1024);
+    private final List<String> shown = new ArrayList<>();
+    private ByteBuffer bytes = ByteBuffer.allocate(8192);
+    private boolean fullFrame;
+    private boolean openLine;
+
+    public Screen(PrintStream out, boolean diff) {
+        this.out = out;
+        this.encoder = out.charset().newEncoder()
+            .onMalformedInput(CodingErrorAction.REPLACE)
+            .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        this.diff = diff;
+    }
+
+    public static Screen console() {
+        return CONSOLE;
+    }
+
+    public static String hpBar(int hp, int maxHp) {
+        int filled = (int) ((double) hp / maxHp * BAR_WIDTH);
+        return BARS[Math.max(0, Math.min(BAR_WIDTH, filled))];
+    }
+
+    // Starts a full-screen frame; anything not yet flushed would be wiped anyway
+    public Screen clear() {
+        frame.setLength(0);
+        fullFrame = true;
+        return this;
+    }
+
+    public Screen text(String text) {
+        frame.append(text);
+        return this;
+    }
+
+    public Screen text(int value) {
+        frame.append(value);
+        return this;
+    }
+
+    public Screen text(String color, String text) {
+        frame.append(color).append(text).append(RESET);
+        return this;
+    }
+
+    public Screen line() {
+        frame.append('\n');
+        return this;
+    }
+
+    public Screen line(String text) {
+        return text(text).line();
+    }
+
+    public Screen line(String color, String text) {
+        return text(color, text).line();
+    }
+
+    // Shows a prompt and flushes, ready for input
+    public void prompt(String color, String text) {
+        text(color, text).flush();
+    }
+
+    public void flush() {
+        if (frame.isEmpty()) return;
+        if (!fullFrame) {
+            write(frame);
+            if (diff) track();
+        } else if (!diff || shown.isEmpty()) {
+            patch.setLength(0);
+            patch.append(CLEAR).append(frame);
+            write(patch);
+            if (diff) {
+                shown.clear();
+                openLine = false;
+                track();
+            }
+        } else {
+            write(patchAgainstShown());
+            shown.clear();
+            openLine = false;
+            track();
+        }
+        frame.setLength(0);
+        fullFrame = false;
+    }
+
+    // Cursor moves plus changed lines only, then everything below the new frame is cleared.
+    // The last line is always rewritten so the cursor ends up after it, ready for the prompt.
+    private CharSequence patchAgainstShown() {
+        patch.setLength(0);
+        int row = 0, start = 0;
+        while (true) {
+            int end = frame.indexOf("\n", start);
+            boolean last = end < 0;
+            if (last) end = frame.length();
+            String before = row < shown.size() ? shown.get(row) : null;
+            if (last || before == null || !before.contentEquals(frame.subSequence(start, end))) {
+                patch.append("\033[").append(row + 1).append(";1H").append(frame, start, end).append("\033[K");
+            }
+            if (last) break;
+            row++;
+            start = end + 1;
+        }
+        return patch.append("\033[J");
+    }
+
+    // Records what the terminal now shows, row by row, so the next full frame can be diffed.
+    // A null row is one we can't vouch for, such as a prompt line the user has typed into.
+    private void track() {
+        if (openLine && !shown.isEmpty()) {
+            shown.set(shown.size() - 1, null);
+            shown.add("");
+        }
+        int start = 0;
+        while (true) {
+            int end = frame.indexOf("\n", start);
+            if (end < 0) break;
+            appendToRow(frame.substring(start, end));
+            shown.add("");
+            start = end + 1;
+        }
+        appendToRow(frame.substring(start));
+        openLine = start < frame.length();
+        // Past a screenful the terminal has scrolled and row numbers no longer line up
+        if (shown.size() > MAX_ROWS) shown.clear();
+    }
+
+    private void appendToRow(String text) {
+        if (shown.isEmpty()) {
+            shown.add(text);
+        } else if (!text.isEmpty()) {
+            String row = shown.get(shown.size() - 1);
+            shown.set(shown.size() - 1, row == null ? null : row + text);
+        }
+    }
+
+    private void write(CharSequence text) {
+        encoder.reset();
+        bytes.clear();
+        CharBuffer chars = CharBuffer.wrap(text);
+        while (true) {
+            CoderResult result = encoder.encode(chars, bytes, true);
+            if (result.isOverflow()) {
+                ByteBuffer bigger = ByteBuffer.allocate(bytes.capacity() * 2);
+                bytes.flip();
+                bigger.put(bytes);
+                bytes = bigger;
+            } else {
+                break;
+            }
+        }
+        encoder.flush(bytes);
+        out.write(bytes.array(), 0, bytes.position());
+        out.flush();
+    }
+}
@@ -0,0 +1,230 @@
+package Codemon;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+// Plays recorded keystroke scripts through MainMenu at full speed and checks the
+// screen output against golden transcripts, then optionally replays them in bulk
+// for games/sec.
+//
+//   ScriptDriver [--dir transcripts] [--seed 42] [--update] [--games n] [--threads 1] [name...]
+//
+// <dir>/<name>.keys is one line of input per line, '#' lines being comments; an
+// empty line is Enter. Each script is one session seeded with --seed, so opponents,
+// rolls and Hard mode's search are the same on every run. Input is echoed where it's
+// read, as on a terminal. <dir>/<name>.txt is the expected output with colours
+// stripped and timings masked; on a mismatch the actual output is written to
+// target/transcripts/<name>.txt. --update rewrites the goldens instead.
+//
+// Unless set on the command line, the data comes from <dir>/fixtures, with no species
+// snapshot, no replays and -Dcodemon.ai.rollouts=2000. Exits with status 1 on any mismatch.
+public final class ScriptDriver {
+    private static final Pattern ANSI = Pattern.compile("\u001B\\[[0-9;]*[A-Za-z]");
+    private static final Pattern TIMING = Pattern.compile("\\d+\\.\\d+ ms\\)");
+    private static final String UNFINISHED = "[script ended before Exit]\n";
+    static final Path DIR = Path.of("transcripts");
+    static final long SEED = 42;
+
+    public static void main(String[] args) throws Exception {
+        Path dir = DIR;
+        long seed = SEED;
+        boolean update = false;
+        int games = 0, threads = 1;
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--dir" -> dir = Path.of(args[++i]);
+                case "--seed" -> seed = Long.parseLong(args[++i]);
+                case "--update" -> update = true;
+                case "--games" -> games = Integer.parseInt(args[++i]);
+                case "--threads" -> threads = Integer.parseInt(args[++i]);
+                default -> names.add(args[i]);
+            }
+        }
+        useFixtures(dir);
+
+        if (names.isEmpty()) names.addAll(scripts(dir));
+        List<String> scripts = new ArrayList<>();
+        for (String name : names) scripts.add(Files.readString(dir.resolve(name + ".keys")));
+
+        int failed = 0;
+        for (int i = 0; i < names.size(); i++) {
+            String name = names.get(i);
+            String actual = normalize(play(scripts.get(i), seed, true));
+            Path golden = dir.resolve(name + ".txt");
+            if (update) {
+                Files.writeString(golden, actual);
+                System.out.println("updated " + golden);
+                continue;
+            }
+            String expected = Files.exists(golden) ? Files.readString(golden) : "";
+            if (expected.equals(actual)) {
+                System.out.println("PASS " + name);
+            } else {
+                failed++;
+                Path out = Path.of("target/transcripts", name + ".txt");
+                Files.createDirectories(out.getParent());
+                Files.writeString(out, actual);
+                System.out.println("FAIL " + name + ": " + firstDifference(expected, actual) + " (actual output in " + out + ")");
+            }
+        }
+
+        if (games > 0) throughput(scripts, seed, games, threads);
+        if (failed > 0) {
+            System.out.println(failed + " of " + names.size() + " transcripts differ");
+            System.exit(1);
+        }
+    }
+
+    // The settings every script is recorded under; must run before anything reads them
+    static void useFixtures(Path dir) {
+        defaultProperty("codemon.data", dir.resolve("fixtures").toString());
+        defaultProperty("codemon.snapshot", "off");
+        defaultProperty("codemon.replay", "off");
+        defaultProperty("codemon.ai.rollouts", "2000");
+    }
+
+    // Names of the scripts in dir, sorted
+    static List<String> scripts(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(p -> p.getFileName().toString()).filter(n -> n.endsWith(".keys"))
+                .map(n -> n.substring(0, n.length() - 5)).sorted().toList();
+        }
+    }
+
+    private static void defaultProperty(String key, String value) {
+        if (System.getProperty(key) == null) System.setProperty(key, value);
+    }
+
+    // One game from script, returning everything written to the screen
+    static String play(String script, long seed, boolean echo) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 * 1024);
+        PrintStream out = new PrintStream(bytes, false, StandardCharsets.UTF_8);
+        if (!run(script, seed, out, echo)) out.print(UNFINISHED);
+        out.flush();
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+
+    // True when the script reached Exit, false when it ran out of input first
+    private static boolean run(String script, long seed, PrintStream out, boolean echo) {
+        Keystrokes keys = new Keystrokes(script, echo ? out : null);
+        try {
+            MainMenu.run(new Session(keys, out, keys, new SplittableRandom(seed)));
+            return true;
+        } catch (NoSuchElementException | IllegalStateException e) {
+            return false;
+        }
+    }
+
+    static String normalize(String output) {
+        return TIMING.matcher(ANSI.matcher(output).replaceAll("")).replaceAll("#.### ms)");
+    }
+
+    private static String firstDifference(String expected, String actual) {
+        String[] e = expected.split("\n", -1), a = actual.split("\n", -1);
+        for (int i = 0; i < Math.max(e.length, a.length); i++) {
+            String el = i < e.length ? e[i] : "<end>", al = i < a.length ? a[i] : "<end>";
+            if (!el.equals(al)) return "line " + (i + 1) + ": expected \"" + el.strip() + "\", got \"" + al.strip() + "\"";
+        }
+        return "line endings differ";
+    }
+
+    // Plays the scripts round-robin, same seeds as the check, with output rendered but discarded
+    private static void throughput(List<String> scripts, long seed, int games, int threads) throws InterruptedException {
+        LatencyHistogram times = new LatencyHistogram("Game");
+        AtomicInteger next = new AtomicInteger();
+        AtomicLong bytes = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(threads);
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            Thread.ofPlatform().start(() -> {
+                try {
+                    CountingStream sink = new CountingStream();
+                    PrintStream out = new PrintStream(sink, false, StandardCharsets.UTF_8);
+                    for (int n; (n = next.getAndIncrement()) < games; ) {
+                        long gameStart = System.nanoTime();
+                        run(scripts.get(n % scripts.size()), seed, out, false);
+                        times.record(System.nanoTime() - gameStart);
+                    }
+                    out.flush();
+                    bytes.addAndGet(sink.count);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games on %d thread%s in %.2f s: %,.0f games/sec, %.1f MB of output%n",
+            games, threads, threads == 1 ? "" : "s", seconds, games / seconds, bytes.get() / 1e6);
+        System.out.printf("%-10s %8s %10s %10s %10s %10s%n", "Latency", "Count", "p50", "p99", "Max", "Mean");
+        System.out.printf("%-10s %8d %10s %10s %10s %10s%n", times.name(), times.count(),
+            Metrics.duration(times.percentile(50)), Metrics.duration(times.percentile(99)),
+            Metrics.duration(times.max()), Metrics.duration((long) times.mean()));
+    }
+
+    // Hands the script to the Scanner a line per read, so each line is echoed just as
+    // the game asks for it. Comment lines never reach the game.
+    private static final class Keystrokes extends InputStream {
+        private final String[] lines;
+        private final PrintStream echo;
+        private int line;
+        private byte[] pending = new byte[0];
+        private int position;
+
+        Keystrokes(String script, PrintStream echo) {
+            this.lines = script.lines().filter(l -> !l.startsWith("#")).toArray(String[]::new);
+            this.echo = echo;
+        }
+
+        @Override
+        public int read() {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (position == pending.length) {
+                if (line == lines.length) return -1;
+                String next = lines[line++] + "\n";
+                pending = next.getBytes(StandardCharsets.UTF_8);
+                position = 0;
+                if (echo != null) echo.print(next);
+            }
+            int n = Math.min(len, pending.length - position);
+            System.arraycopy(pending, position, b, off, n);
+            position += n;
+            return n;
+        }
+    }
+
+    private static final class CountingStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package Codemon;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.random.RandomGenerator;
+
+// Monte Carlo search over the first move: each candidate is scored by playing the
+// battle out to the end many times from a BattleState copy, with both sides moving
+// at random afterwards, and UCB1 steering rollouts toward the promising candidates.
+// Chance nodes (accuracy, crits, variance) are sampled, not enumerated.
+//
+// Search runs on every core. Each worker owns its own statistics, scratch state and
+// generator, and the totals are merged at the end, so the rollout loop shares nothing
+// and allocates nothing. A time budget stops each worker at the deadline; a rollout
+// budget instead splits a fixed number of rollouts over a fixed number of shards,
+// so a seeded game makes the same choices on any machine.
+//
+// A platform thread (the console game) runs one shard itself. A virtual thread (a
+// BattleServer session) hands every shard to the pool and parks, so searches never pin
+// the carriers that every session's I/O runs on, and the pool caps their CPU across
+// sessions; a timed search queued past its deadline still plays one batch per shard.
+public final class SearchPolicy implements MovePolicy {
+    private static final int WORKERS = Runtime.getRuntime().availableProcessors();
+    private static final ExecutorService POOL = Executors.newFixedThreadPool(WORKERS, r -> {
+        Thread t = new Thread(r, "search-worker");
+        t.setDaemon(true);
+        return t;
+    });
+    // Rollouts are cut off here and scored by remaining HP; real battles rarely get close
+    private static final int MAX_ROLLOUT_TURNS = 200;
+    // Deadline checks are batched, since System.nanoTime() costs about as much as a turn
+    private static final int CHECK_EVERY = 32;
+    private static final double EXPLORATION = Math.sqrt(2);
+    // Independent of the core count, so fixed-rollout searches are reproducible everywhere
+    private static final int FIXED_SHARDS = 8;
+
+    private final long budgetNanos;
+    private final int rollouts;
+    private volatile long lastRollouts;
+
+    private SearchPolicy(long budgetNanos, int rollouts) {
+        this.budgetNanos = budgetNanos;
+        this.rollouts = rollouts;
+    }
+
+    // Searches for up to budgetMillis per move
+    public static SearchPolicy timed(long budgetMillis) {
+        return new SearchPolicy(budgetMillis * 1_000_000L, 0);
+    }
+
+    // Exactly this many rollouts per move, for reproducible games and benchmarks
+    public static SearchPolicy fixed(int rollouts) {
+        return new SearchPolicy(0, rollouts);
+    }
+
+    // Hard mode's opponent: -Dcodemon.ai.budgetMs (default 50) per move, or
+    // -Dcodemon.ai.rollouts=<n> for a fixed, reproducible amount of search
+    public static SearchPolicy forGame() {
+        Integer rollouts = Integer.getInteger("codemon.ai.rollouts");
+        if (rollouts != null) return fixed(rollouts);
+        return timed(Long.getLong("codemon.ai.budgetMs", 50));
+    }
+
+    // Rollouts played by the most recent choose()
+    public long lastRollouts() {
+        return lastRollouts;
+    }
+
+    // Searches from the battle's own state, which is only read
+    @Override
+    public int choose(BattleState state, int side, RandomGenerator rng) {
+        return search(state, side, rng);
+    }
+
+    public int search(BattleState root, int side, RandomGenerator rng) {
+        int moves = root.moveCount(side);
+        if (moves <= 1) {
+            lastRollouts = 0;
+            return 0;
+        }
+        long deadline = budgetNanos > 0 ? System.nanoTime() + budgetNanos : 0;
+        int shards = budgetNanos > 0 ? WORKERS : FIXED_SHARDS;
+        Worker[] workers = new Worker[shards];
+        for (int w = 0; w < shards; w++) {
+            int quota = rollouts / shards + (w < rollouts % shards ? 1 : 0);
+            workers[w] = new Worker(root, side, new SplittableRandom(rng.nextLong()), deadline, quota);
+        }
+
+        boolean inline = !Thread.currentThread().isVirtual();
+        List<Future<?>> running = new ArrayList<>(shards);
+        for (int w = inline ? 1 : 0; w < shards; w++) running.add(POOL.submit(workers[w]));
+        if (inline) workers[0].run();
+        for (Future<?> f : running) {
+            try {
+                f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Search worker failed", e.getCause());
+            }
+        }
+
+        long[] score = new long[moves];
+        long[] visits = new long[moves];
+        long total = 0;
+        for (Worker w : workers) {
+            for (int m = 0; m < moves; m++) {
+                score[m] += w.score[m];
+                visits[m] += w.visits[m];
+            }
+            total += w.played;
+        }
+        lastRollouts = total;
+
+        // Best average outcome; more visits breaks ties
+        int best = 0;
+        for (int m = 1; m < moves; m++) {
+            long lhs = score[m] * Math.max(1, visits[best]);
+            long rhs = score[best] * Math.max(1, visits[m]);
+            if (visits[best] == 0 || (visits[m] > 0 && (lhs > rhs || lhs == rhs && visits[m] > visits[best]))) best = m;
+        }
+        return best;
+    }
+
+    private static final class Worker implements Runnable {
+        private final BattleState root;
+        private final BattleState scratch = new BattleState();
+        private final int side;
+        private final SplittableRandom rng;
+        private final long deadline;
+        private final int quota;
+        // Outcomes in half points: 2 for a win, 1 for a draw, 0 for a loss
+        final long[] score = new long[BattleState.MAX_MOVES];
+        final long[] visits = new long[BattleState.MAX_MOVES];
+        long played;
+
+        Worker(BattleState root, int side, SplittableRandom rng, long deadline, int quota) {
+            this.root = root;
+            this.side = side;
+            this.rng = rng;
+            this.deadline = deadline;
+            this.quota = quota;
+        }
+
+        @Override
+        public void run() {
+            int moves = root.moveCount(side);
+            while (true) {
+                if (deadline == 0) {
+                    if (played >= quota) return;
+                } else if (played % CHECK_EVERY == 0 && played > 0 && System.nanoTime() >= deadline) {
+                    return;
+                }
+                int move = select(moves);
+                score[move] += rollout(move);
+                visits[move]++;
+                played++;
+            }
+        }
+
+        // UCB1, visiting every move once first
+        private int select(int moves) {
+            for (int m = 0; m < moves; m++) {
+                if (visits[m] == 0) return m;
+            }
+            double logTotal = Math.log(played);
+            int best = 0;
+            double bestValue = -1;
+            for (int m = 0; m < moves; m++) {
+                double value = score[m] / (2.0 * visits[m]) + EXPLORATION * Math.sqrt(logTotal / visits[m]);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = m;
+                }
+            }
+            return best;
+        }
+
+        private int rollout(int firstMove) {
+            BattleState s = scratch;
+            s.copyFrom(root);
+            int foe = 1 - side;
+            int foeMoves = s.moveCount(foe);
+            int ownMoves = s.moveCount(side);
+            int own = firstMove;
+            for (int turn = 0; turn < MAX_ROLLOUT_TURNS; turn++) {
+                int other = rng.nextInt(foeMoves);
+                int winner = side == BattleState.SIDE_A ? s.playTurn(own, other, rng) : s.playTurn(other, own, rng);
+                if (winner >= 0) return winner == side ? 2 : 0;
+                own = rng.nextInt(ownMoves);
+            }
+            // Cut off: whoever kept more of their HP
+            double mine = (double) s.hp(side) / Math.max(1, s.maxHp(side));
+            double theirs = (double) s.hp(foe) / Math.max(1, s.maxHp(foe));
+            return mine > theirs ? 2 : mine < theirs ? 0 : 1;
+        }
+    }
+}
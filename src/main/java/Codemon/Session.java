@@ -0,0 +1,76 @@
+package Codemon;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.SplittableRandom;
+
+// One player's connection to the game: where their input comes from, where their
+// screen goes, their own speculative loads and the randomness behind their opponents
+// and battles. The terminal game is one console session, the only one with a SaveStore
+// and, unless -Dcodemon.replay.server=true, the only one recording replays; BattleServer
+// makes one per TCP connection, and ScriptDriver one per scripted game with a fixed seed.
+public final class Session implements Closeable {
+    private final Scanner scanner;
+    private final Screen screen;
+    private final Closeable connection;
+    private final SplittableRandom random;
+    private final Prefetcher prefetcher;
+    private final SaveStore save;
+    private final boolean replays;
+
+    public Session(InputStream in, PrintStream out, Closeable connection) {
+        this(in, out, connection, new SplittableRandom());
+    }
+
+    // Same seed and same input, same game
+    public Session(InputStream in, PrintStream out, Closeable connection, SplittableRandom random) {
+        this(new Scanner(in, StandardCharsets.UTF_8), new Screen(out, Boolean.getBoolean("codemon.render.diff")),
+            connection, random, null, ReplayLog.SERVER);
+    }
+
+    private Session(Scanner scanner, Screen screen, Closeable connection, SplittableRandom random, SaveStore save,
+                    boolean replays) {
+        this.scanner = scanner;
+        this.screen = screen;
+        this.connection = connection;
+        this.random = random;
+        this.prefetcher = new Prefetcher(random);
+        this.save = save;
+        this.replays = replays;
+    }
+
+    public static Session console() {
+        return new Session(new Scanner(System.in), Screen.console(), System.in, new SplittableRandom(),
+            SaveStore.forConsole(), true);
+    }
+
+    public Scanner scanner() { return scanner; }
+    public Screen screen() { return screen; }
+    public Prefetcher prefetcher() { return prefetcher; }
+    public SplittableRandom random() { return random; }
+    // Null when this player's progress isn't kept
+    public SaveStore save() { return save; }
+    // Whether this player's battles go to the replay directory
+    public boolean replays() { return replays; }
+
+    // Waits for Enter. A pause always follows a menu answer, so the rest of that line goes first.
+    public void pause() {
+        screen.line(Screen.PURPLE, "\nPress Enter to continue...").flush();
+        if (scanner.hasNextLine()) scanner.nextLine();
+        if (scanner.hasNextLine()) scanner.nextLine();
+    }
+
+    @Override
+    public void close() {
+        scanner.close();
+        try {
+            connection.close();
+        } catch (IOException e) {
+            // Already gone
+        }
+    }
+}
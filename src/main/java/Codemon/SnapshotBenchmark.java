@@ -0,0 +1,42 @@
+package Codemon;
+
+import java.util.Random;
+
+// Time-to-first-battle: how long it takes to have both combatants ready,
+// loading them from the species snapshot versus straight from PokéAPI.
+//
+//   SnapshotBenchmark [rounds]
+public final class SnapshotBenchmark {
+    public static void main(String[] args) {
+        int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        Random random = new Random(42);
+
+        if (SpeciesSnapshot.get() == null) {
+            System.out.println("No species snapshot found; run SnapshotBuilder first.");
+        } else {
+            long cold = System.nanoTime();
+            firstBattle(random, true);
+            System.out.printf("Snapshot  cold: %10.3f ms%n", (System.nanoTime() - cold) / 1e6);
+            long warm = System.nanoTime();
+            int warmRounds = rounds * 1000;
+            for (int i = 0; i < warmRounds; i++) firstBattle(random, true);
+            System.out.printf("Snapshot  warm: %10.3f ms/battle%n", (System.nanoTime() - warm) / 1e6 / warmRounds);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < rounds; i++) firstBattle(random, false);
+        System.out.printf("PokéAPI        : %10.3f ms/battle%n", (System.nanoTime() - start) / 1e6 / rounds);
+    }
+
+    private static void firstBattle(Random random, boolean snapshot) {
+        int player = random.nextInt(151) + 1;
+        int opponent = random.nextInt(151) + 1;
+        if (snapshot) {
+            SpeciesSnapshot.load(player);
+            SpeciesSnapshot.load(opponent);
+        } else {
+            Factory.fetchFromAPI(player);
+            Factory.fetchFromAPI(opponent);
+        }
+    }
+}
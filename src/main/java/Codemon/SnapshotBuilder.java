@@ -0,0 +1,180 @@
+package Codemon;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Generates the species snapshot read by SpeciesSnapshot: base stats for the
+// roster plus the MoveCatalog of every move it can learn. This is the only place
+// moves are fetched one by one.
+//
+//   SnapshotBuilder [--out file] [--count n] [--fixtures dir] [--if-missing] [--optional]
+//
+// Without --fixtures the data comes from DataSources.get() (PokéAPI unless
+// -Dcodemon.data says otherwise); with it, from recorded responses laid out as
+// <dir>/pokemon/<id>.json and <dir>/move/<name>.json.
+//
+// The result is committed as src/main/resources/species.bin and bundled like any resource,
+// so builds never touch the network; mvn -Psnapshot process-classes regenerates it.
+// --if-missing keeps an existing file; --optional turns a failed build into a message.
+public final class SnapshotBuilder {
+    public static void main(String[] args) throws IOException {
+        Path out = Path.of("src/main/resources/species.bin");
+        String fixtures = null;
+        int count = 151;
+        boolean ifMissing = false, optional = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out" -> out = Path.of(args[++i]);
+                case "--count" -> count = Integer.parseInt(args[++i]);
+                case "--fixtures" -> fixtures = args[++i];
+                case "--if-missing" -> ifMissing = true;
+                case "--optional" -> optional = true;
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        if (ifMissing && Files.exists(out)) {
+            System.out.println("Species snapshot " + out + " already built");
+            return;
+        }
+
+        if (fixtures != null) DataSources.set(DataSources.of(fixtures));
+        try {
+            build(out, count);
+        } catch (RuntimeException e) {
+            if (!optional) throw e;
+            System.out.println("Species snapshot not built (" + e.getMessage() + "); species will be fetched from PokéAPI");
+        }
+    }
+
+    private static void build(Path out, int count) throws IOException {
+        try (ExecutorService fetcher = Executors.newVirtualThreadPerTaskExecutor()) {
+            build(out, count, fetcher);
+        }
+    }
+
+    private static void build(Path out, int count, ExecutorService fetcher) throws IOException {
+        SortedMap<Integer, Factory.Document> roster = new TreeMap<>();
+        // Every move any species can learn, in first-seen order, fetched concurrently
+        Map<String, CompletableFuture<Move>> lookups = new LinkedHashMap<>();
+        for (int id = 1; id <= count; id++) {
+            byte[] json = load("pokemon/" + id);
+            if (json == null) {
+                System.out.println(id + ". skipped (no data)");
+                continue;
+            }
+            Factory.Document species = Factory.parseDocument(new ByteArrayInputStream(json));
+            roster.put(id, species);
+            for (String move : species.moveNames()) {
+                lookups.computeIfAbsent(move, name -> CompletableFuture.supplyAsync(() -> loadMove(name), fetcher));
+            }
+            System.out.println(id + ". " + species.displayName() + " (" + species.moveNames().size() + " learnable moves)");
+        }
+
+        List<Move> moves = new ArrayList<>();
+        Map<String, Integer> ids = new HashMap<>();
+        for (Map.Entry<String, CompletableFuture<Move>> e : lookups.entrySet()) {
+            Move move;
+            try {
+                move = e.getValue().join();
+            } catch (CompletionException failed) {
+                throw new RuntimeException("Failed to load move/" + e.getKey(), failed.getCause());
+            }
+            if (move == null) {
+                System.out.println("Move " + e.getKey() + " skipped (no data)");
+                continue;
+            }
+            ids.put(e.getKey(), moves.size());
+            moves.add(move);
+        }
+
+        write(out, roster, moves, ids);
+        System.out.println("\nWrote " + roster.size() + " species and " + moves.size() + " moves to " + out
+            + " (" + Files.size(out) + " bytes)");
+    }
+
+    // Null only for a move the API doesn't have; a timeout, 429 or open breaker fails the build like a species would,
+    // rather than quietly cutting it out of every learnset
+    private static Move loadMove(String name) {
+        try {
+            return Factory.loadMove(name);
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] load(String path) {
+        try {
+            return DataSources.get().fetch(path);
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load " + path, e);
+        }
+    }
+
+    static void write(Path out, SortedMap<Integer, Factory.Document> roster, List<Move> moves,
+                      Map<String, Integer> moveIds) throws IOException {
+        int maxId = roster.isEmpty() ? 0 : roster.lastKey();
+        int[] offsets = new int[maxId + 1];
+        int[][] learnsets = new int[maxId + 1][];
+
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        DataOutputStream rec = new DataOutputStream(records);
+        int base = SpeciesSnapshot.HEADER + offsets.length * 4;
+        for (Map.Entry<Integer, Factory.Document> e : roster.entrySet()) {
+            Factory.Document s = e.getValue();
+            offsets[e.getKey()] = base + rec.size();
+            writeString(rec, s.displayName());
+            writeString(rec, s.type());
+            writeString(rec, s.secondaryType() == null ? "" : s.secondaryType());
+            rec.writeShort(s.hp());
+            rec.writeShort(s.attack());
+            rec.writeShort(s.defense());
+            learnsets[e.getKey()] = s.moveNames().stream().filter(moveIds::containsKey).mapToInt(moveIds::get).toArray();
+        }
+        int catalogAt = base + rec.size();
+        MoveCatalog.write(rec, moves, learnsets);
+
+        ByteArrayOutputStream file = new ByteArrayOutputStream(base + records.size());
+        DataOutputStream head = new DataOutputStream(file);
+        head.writeInt(SpeciesSnapshot.MAGIC);
+        head.writeShort(SpeciesSnapshot.VERSION);
+        head.writeShort(maxId);
+        head.writeInt(catalogAt);
+        for (int offset : offsets) head.writeInt(offset);
+        records.writeTo(file);
+
+        Path parent = out.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        Path tmp = Files.createTempFile(parent, "species", ".tmp");
+        Files.write(tmp, file.toByteArray());
+        Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+}
@@ -2,35 +2,41 @@ package Codemon;
 
 import java.util.List;
 
-public class Species {
-    private String name;
-    private String type;
-    private int level;
-    private int hp;
-    private int maxHp;
-    private int attack;
-    private int defense;
-    private List<Move> moves;
+// One species as loaded: name, types, base stats and moveset. Immutable, so Factory
+// loads each ID once and every battle and session shares it; what changes during a
+// battle (HP, Hard mode's boost) lives in that battle's BattleState.
+public final class Species {
+    private final String name;
+    private final String type;
+    private final String secondaryType;
+    private final int level;
+    private final int hp;
+    private final int attack;
+    private final int defense;
+    private final List<Move> moves;
 
     public Species(String name, String type, int level, int hp, int attack, int defense, List<Move> moves) {
+        this(name, type, null, level, hp, attack, defense, moves);
+    }
+
+    public Species(String name, String type, String secondaryType, int level, int hp, int attack, int defense, List<Move> moves) {
         this.name = name;
         this.type = type;
+        this.secondaryType = secondaryType;
         this.level = level;
         this.hp = hp;
-        this.maxHp = hp;
         this.attack = attack;
         this.defense = defense;
-        this.moves = moves;
+        this.moves = List.copyOf(moves);
     }
 
     public String getName() { return name; }
     public String getType() { return type; }
+    public String getSecondaryType() { return secondaryType; }
+    public String getTypeLabel() { return secondaryType == null ? type : type + "/" + secondaryType; }
     public int getLevel() { return level; }
-    public void setLevel(int level) { this.level = level; }
     public int getHp() { return hp; }
-    public void setHp(int hp) { this.hp = hp; }
-    public int getMaxHp() { return maxHp; }
     public int getAttack() { return attack; }
     public int getDefense() { return defense; }
     public List<Move> getMoves() { return moves; }
-}
\ No newline at end of file
+}
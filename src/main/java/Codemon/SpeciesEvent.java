@@ -0,0 +1,21 @@
+package Codemon;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("codemon.Species")
+@Label("Species Load")
+@Category("Codémon")
+@StackTrace(false)
+final class SpeciesEvent extends jdk.jfr.Event {
+    @Label("ID")
+    int id;
+
+    @Label("Name")
+    String name;
+
+    @Label("From Snapshot")
+    boolean fromSnapshot;
+}
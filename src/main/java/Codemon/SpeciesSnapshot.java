@@ -0,0 +1,129 @@
+package Codemon;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// Read side of the species snapshot written by SnapshotBuilder.
+//
+// Layout (big-endian):
+//   int magic 'CDMN', short version, short maxId, int offset of the move catalog
+//   int[maxId + 1] record offsets (0 = not in snapshot)
+//   records: name, type, secondary type (empty if none), short hp, short attack, short defense
+//   MoveCatalog: every learnable move and each species' learnset
+// Strings are a short byte length followed by UTF-8. Movesets aren't stored; they are
+// picked from the learnset when a species is loaded.
+public final class SpeciesSnapshot {
+    static final int MAGIC = 0x43444D4E;
+    static final short VERSION = 3;
+    static final int HEADER = 12;
+    static final String RESOURCE = "/species.bin";
+
+    private static volatile SpeciesSnapshot instance;
+
+    private final ByteBuffer data;
+    private final int maxId;
+    private final MoveCatalog moves;
+
+    private SpeciesSnapshot(ByteBuffer data) {
+        if (data.getInt(0) != MAGIC || data.getShort(4) != VERSION) {
+            throw new IllegalArgumentException("Not a species snapshot (version " + VERSION + ")");
+        }
+        this.data = data;
+        this.maxId = data.getShort(6);
+        this.moves = MoveCatalog.read(data, data.getInt(8), maxId);
+    }
+
+    // Placeholder used when no snapshot is available, so the lookup isn't retried
+    private SpeciesSnapshot() {
+        this.data = null;
+        this.maxId = -1;
+        this.moves = null;
+    }
+
+    // Returns a fresh Species for the id, or null when the snapshot is missing or doesn't cover it.
+    public static Species load(int id) {
+        SpeciesSnapshot snapshot = get();
+        return snapshot == null ? null : snapshot.species(id);
+    }
+
+    // The snapshot's move catalog, or null without a snapshot
+    public static MoveCatalog catalog() {
+        SpeciesSnapshot snapshot = get();
+        return snapshot == null ? null : snapshot.moves;
+    }
+
+    static SpeciesSnapshot get() {
+        SpeciesSnapshot s = instance;
+        if (s == null) {
+            synchronized (SpeciesSnapshot.class) {
+                s = instance;
+                if (s == null) {
+                    s = open();
+                    instance = s;
+                }
+            }
+        }
+        return s.maxId < 0 ? null : s;
+    }
+
+    private static SpeciesSnapshot open() {
+        try {
+            // -Dcodemon.snapshot=<file> maps an external snapshot instead of the bundled resource; =off uses none
+            String file = System.getProperty("codemon.snapshot");
+            if ("off".equals(file)) return new SpeciesSnapshot();
+            if (file != null) {
+                try (FileChannel ch = FileChannel.open(Path.of(file), StandardOpenOption.READ)) {
+                    return new SpeciesSnapshot(ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size()));
+                }
+            }
+            try (InputStream in = SpeciesSnapshot.class.getResourceAsStream(RESOURCE)) {
+                if (in != null) return new SpeciesSnapshot(ByteBuffer.wrap(in.readAllBytes()));
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Ignoring species snapshot: " + e.getMessage());
+        }
+        return new SpeciesSnapshot();
+    }
+
+    public boolean contains(int id) {
+        return id > 0 && id <= maxId && offset(id) != 0;
+    }
+
+    public Species species(int id) {
+        if (!contains(id)) return null;
+        // Absolute reads only, so one buffer can be shared by any number of threads
+        int[] pos = { offset(id) };
+        String name = string(pos);
+        String type = string(pos);
+        String secondaryType = string(pos);
+        int hp = u16(pos);
+        int attack = u16(pos);
+        int defense = u16(pos);
+        List<Move> moveset = moves.moveset(id, Type.ordinalOf(type), Type.ordinalOf(secondaryType.isEmpty() ? null : secondaryType));
+        return new Species(name, type, secondaryType.isEmpty() ? null : secondaryType, 5, hp, attack, defense, moveset);
+    }
+
+    private int offset(int id) {
+        return data.getInt(HEADER + id * 4);
+    }
+
+    private int u16(int[] pos) {
+        int v = data.getShort(pos[0]) & 0xFFFF;
+        pos[0] += 2;
+        return v;
+    }
+
+    private String string(int[] pos) {
+        int len = u16(pos);
+        byte[] bytes = new byte[len];
+        data.get(pos[0], bytes);
+        pos[0] += len;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
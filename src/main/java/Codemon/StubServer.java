@@ -0,0 +1,169 @@
+package Codemon;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// In-process stand-in for PokéAPI: serves /api/v2/<path> from another data
+// source (normally recorded fixtures) after a configurable delay, so the game
+// and its tools can be load-tested and benchmarked with no network at all.
+// Responses carry an ETag and honour If-None-Match, like the real API.
+// Faults can be injected to rehearse a bad day upstream: a share of requests
+// answered with 503, and a share held back for an extra delay.
+//
+//   StubServer [--port 8080] [--fixtures dir|classpath:/root] [--latency ms]
+//              [--error-rate 0.05] [--slow-rate 0.05 --slow-ms 1500]
+public final class StubServer implements AutoCloseable {
+    private static final String PREFIX = "/api/v2/";
+
+    static {
+        // Without TCP_NODELAY every response stalls on a delayed ACK, adding ~40 ms on loopback
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final DataSource backing;
+    private final long latencyMillis;
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong injected = new AtomicLong();
+    private volatile Faults faults = Faults.NONE;
+
+    // Each request independently fails with probability errorRate, else is slowed by slowMillis with probability slowRate
+    public record Faults(double errorRate, double slowRate, long slowMillis) {
+        public static final Faults NONE = new Faults(0, 0, 0);
+
+        public static Faults fromProperties() {
+            return new Faults(Double.parseDouble(System.getProperty("codemon.stub.errorRate", "0")),
+                Double.parseDouble(System.getProperty("codemon.stub.slowRate", "0")),
+                Long.getLong("codemon.stub.slowMs", 1000));
+        }
+    }
+
+    private StubServer(DataSource backing, int port, long latencyMillis) throws IOException {
+        this.backing = backing;
+        this.latencyMillis = latencyMillis;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.createContext("/", this::handle);
+    }
+
+    // Port 0 picks a free one; see baseUrl()
+    public static StubServer start(DataSource backing, int port, long latencyMillis) throws IOException {
+        StubServer stub = new StubServer(backing, port, latencyMillis);
+        // The dispatcher thread inherits daemon status from whoever starts the server,
+        // so starting it from a daemon thread keeps an in-process stub from holding the JVM open
+        Thread starter = Thread.ofPlatform().daemon().start(stub.server::start);
+        try {
+            starter.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while starting the stub server", e);
+        }
+        return stub;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = 8080;
+        String fixtures = "fixtures";
+        long latency = 0;
+        double errorRate = 0, slowRate = 0;
+        long slowMillis = 1000;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port" -> port = Integer.parseInt(args[++i]);
+                case "--fixtures" -> fixtures = args[++i];
+                case "--latency" -> latency = Long.parseLong(args[++i]);
+                case "--error-rate" -> errorRate = Double.parseDouble(args[++i]);
+                case "--slow-rate" -> slowRate = Double.parseDouble(args[++i]);
+                case "--slow-ms" -> slowMillis = Long.parseLong(args[++i]);
+                default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+            }
+        }
+        StubServer stub = start(new FixtureDataSource(fixtures), port, latency);
+        stub.setFaults(new Faults(errorRate, slowRate, slowMillis));
+        System.out.println("Serving " + fixtures + " at " + stub.baseUrl() + " (" + latency + " ms latency, "
+            + stub.faults + ")");
+        Thread.currentThread().join();
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/api/v2";
+    }
+
+    public long requests() {
+        return requests.get();
+    }
+
+    // Requests answered with an injected error or delay
+    public long faultsInjected() {
+        return injected.get();
+    }
+
+    // Takes effect from the next request, so a run can stage an outage and a recovery
+    public void setFaults(Faults faults) {
+        this.faults = faults;
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            if (latencyMillis > 0) Thread.sleep(latencyMillis);
+            Faults f = faults;
+            if (f != Faults.NONE) {
+                ThreadLocalRandom rng = ThreadLocalRandom.current();
+                if (rng.nextDouble() < f.errorRate()) {
+                    injected.incrementAndGet();
+                    exchange.sendResponseHeaders(503, -1);
+                    return;
+                }
+                if (rng.nextDouble() < f.slowRate()) {
+                    injected.incrementAndGet();
+                    Thread.sleep(f.slowMillis());
+                }
+            }
+            URI uri = exchange.getRequestURI();
+            String path = uri.getPath();
+            if (!path.startsWith(PREFIX)) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            String query = uri.getRawQuery();
+            byte[] body = backing.fetch(path.substring(PREFIX.length()) + (query == null ? "" : "?" + query));
+
+            String etag = "\"" + Integer.toHexString(Arrays.hashCode(body)) + "-" + body.length + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (FileNotFoundException e) {
+            exchange.sendResponseHeaders(404, -1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
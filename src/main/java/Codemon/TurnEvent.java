@@ -0,0 +1,15 @@
+package Codemon;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("codemon.Turn")
+@Label("Battle Turn")
+@Category("Codémon")
+@StackTrace(false)
+final class TurnEvent extends jdk.jfr.Event {
+    @Label("Turn")
+    int turn;
+}
@@ -0,0 +1,40 @@
+package Codemon;
+
+import java.util.HashMap;
+import java.util.Map;
+
+public enum Type {
+    NORMAL, FIRE, WATER, ELECTRIC, GRASS, ICE, FIGHTING, POISON, GROUND,
+    FLYING, PSYCHIC, BUG, ROCK, GHOST, DRAGON, DARK, STEEL, FAIRY;
+
+    // Number of real types; also the ordinal slot used for "no secondary type"
+    public static final int COUNT = 18;
+    public static final int NONE = COUNT;
+
+    private static final Type[] VALUES = values();
+    private static final Map<String, Type> BY_NAME = new HashMap<>();
+
+    static {
+        for (Type t : VALUES) BY_NAME.put(t.apiName(), t);
+    }
+
+    // PokéAPI's lowercase name, e.g. "fire"
+    public String apiName() {
+        return name().toLowerCase();
+    }
+
+    // Null for names outside the chart (PokéAPI's "unknown"/"shadow", or a missing type)
+    public static Type of(String name) {
+        return name == null ? null : BY_NAME.get(name);
+    }
+
+    public static Type byOrdinal(int ordinal) {
+        return VALUES[ordinal];
+    }
+
+    // Ordinal of the named type, or NONE
+    public static int ordinalOf(String name) {
+        Type t = of(name);
+        return t == null ? NONE : t.ordinal();
+    }
+}
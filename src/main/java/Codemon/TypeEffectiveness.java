@@ -1,50 +1,78 @@
 package Codemon;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URI;
-import java.net.URL;
-import java.util.*;
-import org.json.JSONArray;
-import org.json.JSONObject;
-
+// Type matchups as dense primitive tables, built once at class load.
+// Lookups are plain array reads: no allocation, no locking, safe from any thread.
 public final class TypeEffectiveness {
-    private static final Map<String, Map<String, Double>> cache = new HashMap<>();
+    // One row per attacking type, one column per defending type, in Type ordinal order.
+    // '+' super effective, '-' not very effective, '0' no effect, '.' neutral.
+    private static final String[] ROWS = {
+        //NFWEGIFPGFPBRGDDSF
+        "............-0..-.", // normal
+        ".--.++.....+-.-.+.", // fire
+        ".+-.-...+...+.-...", // water
+        "..+--...0+....-...", // electric
+        ".-+.-..-+-.-+.-.-.", // grass
+        ".--.+-..++....+.-.", // ice
+        "+....+.-.---+0.++-", // fighting
+        "....+..--...--..0+", // poison
+        ".+.+-..+.0.-+...+.", // ground
+        "...-+.+....+-...-.", // flying
+        "......++..-....0-.", // psychic
+        ".-..+.--.-+..-.+--", // bug
+        ".+...+-.-+.+....-.", // rock
+        "0.........+..+.-..", // ghost
+        "..............+.-0", // dragon
+        "......-...+..+.-.-", // dark
+        ".---.+......+...-+", // steel
+        ".-....+-......++-.", // fairy
+    };
 
-    public static double getMultiplier(String attackType, String defenderType) {
-        try {
-            if (!cache.containsKey(attackType)) {
-                URL url = URI.create("https://pokeapi.co/api/v2/type/" + attackType).toURL();
-                HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-                conn.setRequestMethod("GET");
-                BufferedReader reader = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-                StringBuilder response = new StringBuilder();
-                String line;
-                while ((line = reader.readLine()) != null) response.append(line);
-                reader.close();
-
-                JSONObject obj = new JSONObject(response.toString());
-                JSONObject damage = obj.getJSONObject("damage_relations");
-                Map<String, Double> typeMap = new HashMap<>();
-                for (String key : List.of("double_damage_to", "half_damage_to", "no_damage_to")) {
-                    JSONArray arr = damage.getJSONArray(key);
-                    for (int i = 0; i < arr.length(); i++) {
-                        String target = arr.getJSONObject(i).getString("name");
-                        double mult = switch (key) {
-                            case "double_damage_to" -> 2.0;
-                            case "half_damage_to" -> 0.5;
-                            case "no_damage_to" -> 0.0;
-                            default -> 1.0;
-                        };
-                        typeMap.put(target, mult);
-                    }
+    private static final int SLOTS = Type.COUNT + 1;
+    private static final double[][] CHART = new double[Type.COUNT][Type.COUNT];
+    // [attack][primary][secondary], secondary == Type.NONE for single-typed defenders
+    private static final double[] DUAL = new double[Type.COUNT * SLOTS * SLOTS];
+
+    static {
+        long start = Metrics.start();
+        for (int a = 0; a < Type.COUNT; a++) {
+            for (int d = 0; d < Type.COUNT; d++) {
+                CHART[a][d] = switch (ROWS[a].charAt(d)) {
+                    case '+' -> 2.0;
+                    case '-' -> 0.5;
+                    case '0' -> 0.0;
+                    default -> 1.0;
+                };
+            }
+        }
+        for (int a = 0; a < Type.COUNT; a++) {
+            for (int d1 = 0; d1 < SLOTS; d1++) {
+                for (int d2 = 0; d2 < SLOTS; d2++) {
+                    double m1 = d1 == Type.NONE ? 1.0 : CHART[a][d1];
+                    double m2 = d2 == Type.NONE || d2 == d1 ? 1.0 : CHART[a][d2];
+                    DUAL[(a * SLOTS + d1) * SLOTS + d2] = m1 * m2;
                 }
-                cache.put(attackType, typeMap);
             }
-            return cache.get(attackType).getOrDefault(defenderType, 1.0);
-        } catch (Exception e) {
-            return 1.0;
         }
+        Metrics.stop(Metrics.TYPE_CHART, start);
+    }
+
+    private TypeEffectiveness() {}
+
+    public static double getMultiplier(String attackType, String defenderType) {
+        return getMultiplier(Type.ordinalOf(attackType), Type.ordinalOf(defenderType), Type.NONE);
+    }
+
+    public static double getMultiplier(String attackType, String defenderType, String secondaryType) {
+        return getMultiplier(Type.ordinalOf(attackType), Type.ordinalOf(defenderType), Type.ordinalOf(secondaryType));
+    }
+
+    public static double getMultiplier(Type attack, Type defender) {
+        return CHART[attack.ordinal()][defender.ordinal()];
+    }
+
+    // Ordinal form for hot paths; unknown types (Type.NONE) are neutral
+    public static double getMultiplier(int attack, int defender, int secondary) {
+        if (attack == Type.NONE) return 1.0;
+        return DUAL[(attack * SLOTS + defender) * SLOTS + secondary];
     }
 }
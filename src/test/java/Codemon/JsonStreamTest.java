@@ -0,0 +1,70 @@
+package Codemon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import org.junit.jupiter.api.Test;
+
+class JsonStreamTest {
+    private static final byte[] NAME = JsonStream.key("name"), POWER = JsonStream.key("power");
+
+    private static JsonStream json(String text) {
+        return new JsonStream(new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    void escapedSurrogatePairDecodesToOneCodePoint() throws IOException {
+        String s = json("\"a\\uD83D\\uDE00b\"").nextString();
+        assertEquals("a\uD83D\uDE00b", s);
+        assertEquals(3, s.codePointCount(0, s.length()));
+    }
+
+    @Test
+    void unpairedSurrogateBecomesAQuestionMark() throws IOException {
+        assertEquals("?x", json("\"\\uD83Dx\"").nextString());
+    }
+
+    @Test
+    void skipValueSkipsNestedObjectsAndArrays() throws IOException {
+        JsonStream in = json("{\"moves\": [{\"move\": {\"name\": \"x]}\"}}, [1, [2, {}]]], \"name\": \"tackle\"}");
+        in.beginObject();
+        assertTrue(in.hasNext());
+        assertEquals(-1, in.nextKey(NAME));
+        in.skipValue();
+        assertTrue(in.hasNext());
+        assertEquals(0, in.nextKey(NAME));
+        assertEquals("tackle", in.nextString());
+        assertFalse(in.hasNext());
+        in.endObject();
+    }
+
+    @Test
+    void nextIntReturnsTheDefaultForNull() throws IOException {
+        JsonStream in = json("{\"power\": null, \"name\": null}");
+        in.beginObject();
+        assertEquals(1, in.nextKey(NAME, POWER));
+        assertEquals(-1, in.nextInt(-1));
+        assertTrue(in.hasNext());
+        assertEquals(0, in.nextKey(NAME, POWER));
+        assertNull(in.nextString());
+        in.endObject();
+    }
+
+    @Test
+    void nextIntReadsNegativesAndDropsFractions() throws IOException {
+        JsonStream in = json("[-12, 3.75, 1e3]");
+        in.beginArray();
+        assertEquals(-12, in.nextInt(0));
+        assertTrue(in.hasNext());
+        assertEquals(3, in.nextInt(0));
+        assertTrue(in.hasNext());
+        assertEquals(1, in.nextInt(0));
+        assertFalse(in.hasNext());
+        in.endArray();
+    }
+}
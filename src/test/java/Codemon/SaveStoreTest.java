@@ -0,0 +1,146 @@
+package Codemon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.SplittableRandom;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+// The save's crash safety: a few SaveCrashHarness rounds, plus the repairs open() makes
+// on files left as a crash would leave them, copied from a store before close() compacts
+class SaveStoreTest {
+    @TempDir
+    Path dir;
+
+    @Test
+    void everyReportedSaveSurvivesAKill() throws Exception {
+        SplittableRandom rng = new SplittableRandom(42);
+        long saved = 0;
+        for (int round = 1; round <= 5; round++) {
+            long acked = SaveCrashHarness.runAndKill(dir, saved, 5 + rng.nextInt(150));
+            assertTrue(acked >= saved, "round " + round + ": the child never saved");
+            boolean damaged = rng.nextBoolean();
+            if (damaged) SaveCrashHarness.tear(dir.resolve(SaveStore.LOG), rng);
+            long count;
+            try (SaveStore store = SaveStore.open(dir)) {
+                count = store.battles();
+                assertNull(SaveCrashHarness.verify(store, count), "round " + round);
+            }
+            // acked + 1 saves had returned; a damaged tail may take the last of them
+            assertTrue(count >= (damaged ? acked : acked + 1), "round " + round + " lost reported saves");
+            assertTrue(count >= saved, "round " + round + " went back from " + saved + " to " + count);
+            saved = count;
+        }
+    }
+
+    @Test
+    void tornTailIsCutBackToTheLastGoodFrame() throws IOException {
+        Path crashed = dir.resolve("crashed");
+        long intact;
+        try (SaveStore store = SaveStore.open(dir.resolve("live"))) {
+            for (int i = 0; i < 9; i++) SaveCrashHarness.save(store, i);
+            intact = store.logSize();
+            SaveCrashHarness.save(store, 9);
+            copy(dir.resolve("live"), crashed);
+        }
+        Path log = crashed.resolve(SaveStore.LOG);
+        try (FileChannel ch = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            ch.truncate(ch.size() - 3);
+        }
+
+        try (SaveStore store = SaveStore.open(crashed)) {
+            assertEquals(9, store.battles());
+            assertNull(SaveCrashHarness.verify(store, 9));
+            assertEquals(intact, Files.size(log));
+            // Saves go on after the repaired tail
+            SaveCrashHarness.save(store, 9);
+        }
+        try (SaveStore store = SaveStore.open(crashed)) {
+            assertNull(SaveCrashHarness.verify(store, 10));
+        }
+    }
+
+    @Test
+    void garbageAfterTheLastFrameIsCutOff() throws IOException {
+        Path crashed = dir.resolve("crashed");
+        try (SaveStore store = SaveStore.open(dir.resolve("live"))) {
+            for (int i = 0; i < 10; i++) SaveCrashHarness.save(store, i);
+            copy(dir.resolve("live"), crashed);
+        }
+        Path log = crashed.resolve(SaveStore.LOG);
+        long intact = Files.size(log);
+        try (FileChannel ch = FileChannel.open(log, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.wrap(new byte[] { 0, 0, 0, 40, 1, 2, 3, 4, 5, 6, 7 }), intact);
+        }
+
+        try (SaveStore store = SaveStore.open(crashed)) {
+            assertNull(SaveCrashHarness.verify(store, 10));
+            assertEquals(intact, Files.size(log));
+        }
+    }
+
+    @Test
+    void framesTheSnapshotCoversAreSkipped() throws IOException {
+        // What a crash between the snapshot's rename and the log's leaves: the new snapshot
+        // next to the old log, whose first frames the snapshot already holds
+        Path crashed = dir.resolve("crashed");
+        try (SaveStore store = SaveStore.open(dir.resolve("longer"))) {
+            for (int i = 0; i < 25; i++) SaveCrashHarness.save(store, i);
+            copy(dir.resolve("longer"), crashed);
+        }
+        try (SaveStore store = SaveStore.open(dir.resolve("compacted"))) {
+            for (int i = 0; i < 20; i++) SaveCrashHarness.save(store, i);
+            store.compact();
+            Files.copy(dir.resolve("compacted").resolve(SaveStore.SNAPSHOT), crashed.resolve(SaveStore.SNAPSHOT));
+        }
+
+        try (SaveStore store = SaveStore.open(crashed)) {
+            assertEquals(25, store.battles());
+            assertNull(SaveCrashHarness.verify(store, 25));
+        }
+    }
+
+    @Test
+    void snapshotFailingItsChecksumIsRefused() throws IOException {
+        try (SaveStore store = SaveStore.open(dir)) {
+            for (int i = 0; i < 10; i++) SaveCrashHarness.save(store, i);
+        }
+        Path snapshot = dir.resolve(SaveStore.SNAPSHOT);
+        byte[] bytes = Files.readAllBytes(snapshot);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(snapshot, bytes);
+
+        IOException e = assertThrows(IOException.class, () -> SaveStore.open(dir));
+        assertTrue(e.getMessage().contains("checksum"), e.getMessage());
+    }
+
+    @Test
+    void secondOpenOfTheSameSaveIsRefused() throws IOException {
+        try (SaveStore store = SaveStore.open(dir)) {
+            SaveCrashHarness.save(store, 0);
+            assertThrows(IOException.class, () -> SaveStore.open(dir));
+        }
+        try (SaveStore store = SaveStore.open(dir)) {
+            assertNull(SaveCrashHarness.verify(store, 1));
+        }
+    }
+
+    // The files as a crash would leave them: copied while the store is still open
+    private static void copy(Path from, Path to) throws IOException {
+        Files.createDirectories(to);
+        for (String name : new String[] { SaveStore.SNAPSHOT, SaveStore.LOG }) {
+            Path file = from.resolve(name);
+            if (Files.exists(file)) Files.copy(file, to.resolve(name), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
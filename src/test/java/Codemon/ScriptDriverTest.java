@@ -0,0 +1,30 @@
+package Codemon;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+
+// Every transcripts/<name>.keys played through the menus must print exactly <name>.txt;
+// after an intended change to the output, regenerate with ScriptDriver --update
+class ScriptDriverTest {
+    @BeforeAll
+    static void useFixtures() {
+        ScriptDriver.useFixtures(ScriptDriver.DIR);
+    }
+
+    @TestFactory
+    Stream<DynamicTest> transcriptsMatchGoldens() throws IOException {
+        return ScriptDriver.scripts(ScriptDriver.DIR).stream().map(name -> DynamicTest.dynamicTest(name, () -> {
+            Path dir = ScriptDriver.DIR;
+            String expected = Files.readString(dir.resolve(name + ".txt"));
+            String actual = ScriptDriver.normalize(ScriptDriver.play(Files.readString(dir.resolve(name + ".keys")), ScriptDriver.SEED, true));
+            assertEquals(expected, actual, name + " differs from its golden transcript");
+        }));
+    }
+}